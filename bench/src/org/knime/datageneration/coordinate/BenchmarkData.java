@@ -0,0 +1,110 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.util.Random;
+
+/**
+ * Creates the point sets the benchmarks run on.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class BenchmarkData {
+
+    /** Range of both axes of the benchmarked coordinate panels. */
+    static final int MIN_XY = -10;
+
+    /** Range of both axes of the benchmarked coordinate panels. */
+    static final int MAX_XY = 10;
+
+    private BenchmarkData() {
+        // utility class
+    }
+
+    /**
+     * Creates normally distributed points around a few centers, each center has its own class.
+     *
+     * @param numberOfPoints
+     *            the number of points
+     * @param seed
+     *            the seed of the random number generator
+     * @return the points
+     */
+    static PointStore createPoints(final int numberOfPoints, final long seed) {
+        Random random = new Random(seed);
+        PointStore points = new PointStore(numberOfPoints);
+        for (int i = 0; i < numberOfPoints; i++) {
+            int pointClass = 1 + random.nextInt(8);
+            double centerX = MIN_XY + 2 * pointClass;
+            double centerY = MAX_XY - 2 * pointClass;
+            points.add(centerX + random.nextGaussian(), centerY + random.nextGaussian(), pointClass);
+        }
+        return points;
+    }
+
+    /**
+     * Creates a configuration holding the given points with default ranges.
+     *
+     * @param points
+     *            the points
+     * @param imageSize
+     *            width and height of the image
+     * @return the configuration
+     */
+    static CoordinatePanelNodeConfiguration createConfiguration(final PointStore points, final int imageSize) {
+        CoordinatePanelNodeConfiguration c = new CoordinatePanelNodeConfiguration();
+        c.setMinX(MIN_XY);
+        c.setMaxX(MAX_XY);
+        c.setMinY(MIN_XY);
+        c.setMaxY(MAX_XY);
+        c.setPoints(points);
+        c.setImageWidth(imageSize);
+        c.setImageHeight(imageSize);
+        return c;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.RowOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Row throughput of the point table created by the node model. The rows are consumed by a black hole, so the
+ * benchmark measures row creation without the I/O of a data container.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Djava.awt.headless=true"})
+public class ExecuteBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int m_numberOfPoints;
+
+    private PointStore m_points;
+
+    /**
+     * Creates the points.
+     */
+    @Setup
+    public void setup() {
+        m_points = BenchmarkData.createPoints(m_numberOfPoints, 42);
+    }
+
+    /**
+     * Creates all rows of the point table.
+     *
+     * @param blackhole
+     *            consumes the rows
+     * @throws InterruptedException
+     *             never
+     * @throws CanceledExecutionException
+     *             never
+     */
+    @Benchmark
+    public void createRows(final Blackhole blackhole) throws InterruptedException, CanceledExecutionException {
+        PointRowPipeline.push(m_points, new BlackholeRowOutput(blackhole), new ExecutionMonitor());
+    }
+
+    private static final class BlackholeRowOutput extends RowOutput {
+
+        private final Blackhole m_blackhole;
+
+        BlackholeRowOutput(final Blackhole blackhole) {
+            m_blackhole = blackhole;
+        }
+
+        @Override
+        public void push(final DataRow row) {
+            m_blackhole.consume(row);
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Interactive operations of the coordinate panel in the dialog: picking the point under the mouse, adding a point and
+ * removing the point under the mouse. The panel itself isn't created, the benchmark works on the point store, the
+ * point index and the renderer the panel uses for these operations, so no repaint is measured.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Djava.awt.headless=true"})
+public class PanelBenchmark {
+
+    private static final int PANEL_SIZE = 800;
+
+    // max. screen distance to a point for picking it, as in the panel
+    private static final int PICK_RADIUS = 5;
+
+    // number of precomputed mouse positions
+    private static final int POSITIONS = 1 << 12;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int m_numberOfPoints;
+
+    private CoordinatePanelRenderer m_renderer;
+    private PointStore m_points;
+    private PointIndex m_index;
+    private int[] m_mouseX;
+    private int[] m_mouseY;
+    private int m_next;
+
+    /**
+     * Creates and indexes the points and random mouse positions near the points.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        m_renderer = new CoordinatePanelRenderer(BenchmarkData.MIN_XY, BenchmarkData.MAX_XY, BenchmarkData.MIN_XY,
+                BenchmarkData.MAX_XY, 1, 1);
+        m_renderer.setSize(PANEL_SIZE, PANEL_SIZE);
+        m_points = BenchmarkData.createPoints(m_numberOfPoints, 42);
+        m_index = new PointIndex();
+        m_index.rebuild(m_renderer.getMinX(), m_renderer.getMaxX(), m_renderer.getMinY(), m_renderer.getMaxY(),
+                m_points);
+
+        Random random = new Random(7);
+        m_mouseX = new int[POSITIONS];
+        m_mouseY = new int[POSITIONS];
+        for (int i = 0; i < POSITIONS; i++) {
+            int index = random.nextInt(m_points.size());
+            int[] xy = m_renderer.transformCoordinateToScreen(m_points.getX(index), m_points.getY(index));
+            m_mouseX[i] = xy[0];
+            m_mouseY[i] = xy[1];
+        }
+    }
+
+    /**
+     * Picks the point under the mouse, as done for the tool tip on every mouse move.
+     *
+     * @return the index of the picked point
+     */
+    @Benchmark
+    public int pickPoint() {
+        int i = nextPosition();
+        return m_renderer.findNearestPoint(m_points, m_index, m_mouseX[i], m_mouseY[i], PICK_RADIUS);
+    }
+
+    /**
+     * Adds a point under the mouse and removes the point under the mouse, so the number of points stays the same.
+     */
+    @Benchmark
+    public void addPoint() {
+        int i = nextPosition();
+        add(m_mouseX[i], m_mouseY[i]);
+        remove(m_mouseX[i], m_mouseY[i]);
+    }
+
+    /**
+     * Removes the point under the mouse and adds it again, so the number of points stays the same.
+     */
+    @Benchmark
+    public void removePoint() {
+        int i = nextPosition();
+        remove(m_mouseX[i], m_mouseY[i]);
+        add(m_mouseX[i], m_mouseY[i]);
+    }
+
+    private void add(final int x, final int y) {
+        double[] xy = m_renderer.transformScreenToCoordinate(x, y);
+        m_points.add(xy[0], xy[1], 1);
+        m_index.add(m_points.size() - 1, xy[0], xy[1]);
+    }
+
+    private void remove(final int x, final int y) {
+        int index = m_renderer.findNearestPoint(m_points, m_index, x, y, PICK_RADIUS);
+        if (index >= 0) {
+            m_index.remove(index, m_points.getX(index), m_points.getY(index));
+            m_index.shift(index);
+            m_points.remove(index);
+        }
+    }
+
+    private int nextPosition() {
+        m_next = (m_next + 1) & (POSITIONS - 1);
+        return m_next;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.ExecutionMonitor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creation of the image output of the node model, either rendered in bands and encoded as PNG or written as SVG.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Djava.awt.headless=true"})
+public class RenderBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int m_numberOfPoints;
+
+    @Param({"256", "1024", "4096", "16384"})
+    public int m_imageSize;
+
+    private PointStore m_points;
+    private CoordinatePanelRenderer m_renderer;
+
+    /**
+     * Creates the points and the renderer.
+     */
+    @Setup
+    public void setup() {
+        m_points = BenchmarkData.createPoints(m_numberOfPoints, 42);
+        m_renderer = CoordinatePanelRenderer.create(BenchmarkData.createConfiguration(m_points, m_imageSize));
+    }
+
+    /**
+     * Renders the image in parallel bands and encodes each band in order, as done by the node model.
+     *
+     * @return the PNG image
+     * @throws Exception
+     *             if the image can't be encoded
+     */
+    @Benchmark
+    public byte[] createStripedPng() throws Exception {
+        return m_renderer.createPng(m_points, new ExecutionMonitor(), new ExecutionStatistics("benchmark"));
+    }
+
+    /**
+     * Writes the image as SVG, as done by the node model.
+     *
+     * @return the SVG image
+     * @throws IOException
+     *             if the image can't be written
+     */
+    @Benchmark
+    public byte[] writeSvg() throws IOException {
+        ByteArrayOutputStream svg = new ByteArrayOutputStream();
+        Writer out = new BufferedWriter(new OutputStreamWriter(svg, "UTF-8"));
+        SvgWriter.write(m_renderer, m_points, out);
+        out.close();
+        return svg.toByteArray();
+    }
+}
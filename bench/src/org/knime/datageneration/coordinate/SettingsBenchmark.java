@@ -0,0 +1,149 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.NodeSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving and loading of the node settings, including the settings.xml round trip done when a workflow is saved and
+ * loaded.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Djava.awt.headless=true"})
+public class SettingsBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int m_numberOfPoints;
+
+    private CoordinatePanelNodeConfiguration m_configuration;
+    private NodeSettings m_settings;
+    private byte[] m_xml;
+
+    /**
+     * Creates the configuration and its saved settings.
+     *
+     * @throws IOException
+     *             if the settings can't be written as XML
+     */
+    @Setup
+    public void setup() throws IOException {
+        m_configuration = BenchmarkData.createConfiguration(BenchmarkData.createPoints(m_numberOfPoints, 42), 800);
+        m_settings = save();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        m_settings.saveToXML(out);
+        m_xml = out.toByteArray();
+    }
+
+    /**
+     * Saves the configuration to new settings.
+     *
+     * @return the settings
+     */
+    @Benchmark
+    public NodeSettings save() {
+        NodeSettings settings = new NodeSettings("model");
+        m_configuration.saveConfiguration(settings);
+        return settings;
+    }
+
+    /**
+     * Loads the configuration as the node model does.
+     *
+     * @return the configuration
+     * @throws InvalidSettingsException
+     *             if the settings are invalid
+     */
+    @Benchmark
+    public CoordinatePanelNodeConfiguration load() throws InvalidSettingsException {
+        CoordinatePanelNodeConfiguration c = new CoordinatePanelNodeConfiguration();
+        c.loadConfigurationInModel(m_settings);
+        return c;
+    }
+
+    /**
+     * Writes the settings to XML, parses them again and loads the configuration.
+     *
+     * @return the configuration
+     * @throws IOException
+     *             if the XML can't be written or read
+     * @throws InvalidSettingsException
+     *             if the settings are invalid
+     */
+    @Benchmark
+    public CoordinatePanelNodeConfiguration xmlRoundTrip() throws IOException, InvalidSettingsException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(m_xml.length);
+        save().saveToXML(out);
+        NodeSettings settings = NodeSettings.loadFromXML(new ByteArrayInputStream(out.toByteArray()));
+        CoordinatePanelNodeConfiguration c = new CoordinatePanelNodeConfiguration();
+        c.loadConfigurationInModel(settings);
+        return c;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+/**
+ * A spray brush of the coordinate panel, which scatters a number of points of one class around the mouse position.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class Brush {
+
+    /**
+     * The distributions of the sprayed points around the mouse position.
+     */
+    enum Distribution {
+        /** Points are distributed uniformly within the radius. */
+        UNIFORM("Uniform"),
+        /** Points are normally distributed with a standard deviation of half the radius, cut off at the radius. */
+        GAUSSIAN("Gaussian");
+
+        private final String m_label;
+
+        private Distribution(final String label) {
+            m_label = label;
+        }
+
+        @Override
+        public String toString() {
+            return m_label;
+        }
+    }
+
+    private final int m_radius;
+    private final int m_count;
+    private final Distribution m_distribution;
+    private final int m_pointClass;
+
+    private final SplitMix64 m_random = new SplitMix64(System.nanoTime());
+
+    /**
+     * @param radius
+     *            the radius of the brush on the screen in pixels
+     * @param count
+     *            the number of points sprayed per mouse event
+     * @param distribution
+     *            the distribution of the points around the mouse position
+     * @param pointClass
+     *            the class of the sprayed points (1-54)
+     */
+    Brush(final int radius, final int count, final Distribution distribution, final int pointClass) {
+        m_radius = Math.max(1, radius);
+        m_count = Math.max(1, count);
+        m_distribution = distribution;
+        m_pointClass = pointClass;
+    }
+
+    /**
+     * @return the radius of the brush on the screen in pixels
+     */
+    int getRadius() {
+        return m_radius;
+    }
+
+    /**
+     * @return the number of points sprayed per mouse event
+     */
+    int getCount() {
+        return m_count;
+    }
+
+    /**
+     * @return the class of the sprayed points
+     */
+    int getPointClass() {
+        return m_pointClass;
+    }
+
+    /**
+     * Samples the screen positions of the points of one mouse event.
+     *
+     * @param x
+     *            x coordinate of the mouse on the screen
+     * @param y
+     *            y coordinate of the mouse on the screen
+     * @param xs
+     *            receives the x coordinates, at least {@link #getCount()} long
+     * @param ys
+     *            receives the y coordinates, at least {@link #getCount()} long
+     */
+    void spray(final int x, final int y, final double[] xs, final double[] ys) {
+        for (int i = 0; i < m_count; i++) {
+            double dx;
+            double dy;
+            if (m_distribution == Distribution.GAUSSIAN) {
+                // rejection keeps the points within the radius
+                do {
+                    dx = m_random.nextGaussian() * m_radius / 2;
+                    dy = m_random.nextGaussian() * m_radius / 2;
+                } while (dx * dx + dy * dy > m_radius * m_radius);
+            } else {
+                // the square root of the uniform radius spreads the points
+                // evenly over the area of the disk
+                final double r = m_radius * Math.sqrt(m_random.nextDouble());
+                final double angle = 2 * Math.PI * m_random.nextDouble();
+                dx = r * Math.cos(angle);
+                dy = r * Math.sin(angle);
+            }
+            xs[i] = x + dx;
+            ys[i] = y + dy;
+        }
+    }
+}
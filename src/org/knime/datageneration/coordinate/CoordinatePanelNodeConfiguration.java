@@ -47,6 +47,12 @@
  */
 package org.knime.datageneration.coordinate;
 
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.xml.bind.DatatypeConverter;
+
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
@@ -70,13 +76,35 @@ public class CoordinatePanelNodeConfiguration {
     private int m_gridY = GRID_XY;
     private int m_gridX = GRID_XY;
 
-    private double[] m_pointsX = new double[0];
-    private double[] m_pointsY = new double[0];
-    private int[] m_pointsClasses = new int[0];
+    private PointStore m_points = new PointStore(0);
+
+    private boolean m_storePointsInInternals = false;
+
+    // the encoded points of the loaded settings as long as they haven't been
+    // decoded, the points may still be taken from the node internals instead
+    // if they match the number and checksum of the points in the settings
+    private String m_pointData;
+    private int m_pointCount;
+    private long m_pointChecksum;
 
     private int m_imageHeight = 800;
     private int m_imageWidth = 800;
-    private byte[] m_image = new byte[0];
+    private int m_densityThreshold = DensityRenderer.DEFAULT_THRESHOLD;
+    private boolean m_svgImage = false;
+    private boolean m_publishStatistics = false;
+
+    private boolean m_generatorEnabled = false;
+    private PointGenerator.Shape m_generatorShape = PointGenerator.Shape.BLOBS;
+    private int m_generatorPoints = 10000;
+    private int m_generatorClasses = 2;
+    private double m_generatorNoise = 0.1;
+    private long m_generatorSeed = 1;
+
+    // the columns of the optional input table, null if not selected yet
+    private boolean m_useInputPoints = true;
+    private String m_inputXColumn;
+    private String m_inputYColumn;
+    private String m_inputClassColumn;
 
     /**
      * Save current config.
@@ -91,12 +119,40 @@ public class CoordinatePanelNodeConfiguration {
         settings.addInt("maxX", m_maxX);
         settings.addInt("gridY", m_gridY);
         settings.addInt("gridX", m_gridX);
-        settings.addDoubleArray("pointsY", m_pointsY);
-        settings.addDoubleArray("pointsX", m_pointsX);
-        settings.addIntArray("pointsClasses", m_pointsClasses);
+        settings.addBoolean("storePointsInInternals", m_storePointsInInternals);
+        savePoints(settings);
         settings.addInt("imageWidth", m_imageWidth);
         settings.addInt("imageHeight", m_imageHeight);
-        settings.addByteArray("image", m_image);
+        settings.addInt("densityThreshold", m_densityThreshold);
+        settings.addBoolean("svgImage", m_svgImage);
+        settings.addBoolean("publishStatistics", m_publishStatistics);
+        settings.addBoolean("generatorEnabled", m_generatorEnabled);
+        settings.addString("generatorShape", m_generatorShape.name());
+        settings.addInt("generatorPoints", m_generatorPoints);
+        settings.addInt("generatorClasses", m_generatorClasses);
+        settings.addDouble("generatorNoise", m_generatorNoise);
+        settings.addLong("generatorSeed", m_generatorSeed);
+        settings.addBoolean("useInputPoints", m_useInputPoints);
+        settings.addString("inputXColumn", m_inputXColumn);
+        settings.addString("inputYColumn", m_inputYColumn);
+        settings.addString("inputClassColumn", m_inputClassColumn);
+    }
+
+    private void savePoints(final NodeSettingsWO settings) {
+        // a single entry instead of one entry per coordinate, which keeps the
+        // settings small and fast to parse. The points are always saved, also
+        // if they are stored in the internals, since copied or exported nodes
+        // only keep their settings
+        if (m_pointData != null) {
+            settings.addString("pointData", m_pointData);
+        } else {
+            settings.addString("pointData", DatatypeConverter.printBase64Binary(PointCodec.encode(m_points)));
+        }
+        if (m_storePointsInInternals) {
+            settings.addInt("pointCount", getPointCount());
+            settings.addLong("pointChecksum", m_pointData != null ? m_pointChecksum
+                    : PointStoreFile.checksum(m_points));
+        }
     }
 
     /**
@@ -105,7 +161,7 @@ public class CoordinatePanelNodeConfiguration {
      * @param settings
      *            To load from.
      * @throws InvalidSettingsException
-     *             Not actually thrown.
+     *             If the point data is invalid.
      */
     void loadConfigurationInModel(final NodeSettingsRO settings) throws InvalidSettingsException {
         m_minY = settings.getInt("minY", MIN_XY);
@@ -114,12 +170,23 @@ public class CoordinatePanelNodeConfiguration {
         m_maxX = settings.getInt("maxX", MAX_XY);
         m_gridY = settings.getInt("gridY", GRID_XY);
         m_gridX = settings.getInt("gridX", GRID_XY);
-        m_pointsY = settings.getDoubleArray("pointsY", m_pointsY);
-        m_pointsX = settings.getDoubleArray("pointsX", m_pointsX);
-        m_pointsClasses = settings.getIntArray("pointsClasses", m_pointsClasses);
+        m_storePointsInInternals = settings.getBoolean("storePointsInInternals", false);
+        loadPoints(settings);
+        if (m_pointData != null && settings.containsKey("pointCount")) {
+            // the points may be taken from the internals, which is faster
+            // than decoding them, see setStoredPoints
+            m_pointCount = settings.getInt("pointCount");
+            m_pointChecksum = settings.getLong("pointChecksum");
+        } else {
+            decodePoints();
+        }
         m_imageWidth = settings.getInt("imageWidth", m_imageWidth);
         m_imageHeight = settings.getInt("imageHeight", m_imageHeight);
-        m_image = settings.getByteArray("image", m_image);
+        m_densityThreshold = settings.getInt("densityThreshold", DensityRenderer.DEFAULT_THRESHOLD);
+        m_svgImage = settings.getBoolean("svgImage", false);
+        m_publishStatistics = settings.getBoolean("publishStatistics", false);
+        loadGenerator(settings);
+        loadInput(settings);
     }
 
     /**
@@ -127,20 +194,124 @@ public class CoordinatePanelNodeConfiguration {
      *
      * @param settings
      *            To load from.
+     * @throws InvalidSettingsException
+     *             If the point data is invalid.
      */
-    void loadConfigurationInDialog(final NodeSettingsRO settings) {
+    void loadConfigurationInDialog(final NodeSettingsRO settings) throws InvalidSettingsException {
         m_minY = settings.getInt("minY", MIN_XY);
         m_maxY = settings.getInt("maxY", MAX_XY);
         m_minX = settings.getInt("minX", MIN_XY);
         m_maxX = settings.getInt("maxX", MAX_XY);
         m_gridY = settings.getInt("gridY", GRID_XY);
         m_gridX = settings.getInt("gridX", GRID_XY);
-        m_pointsY = settings.getDoubleArray("pointsY", m_pointsY);
-        m_pointsX = settings.getDoubleArray("pointsX", m_pointsX);
-        m_pointsClasses = settings.getIntArray("pointsClasses", m_pointsClasses);
+        m_storePointsInInternals = settings.getBoolean("storePointsInInternals", false);
+        loadPoints(settings);
+        decodePoints();
         m_imageWidth = settings.getInt("imageWidth", m_imageWidth);
         m_imageHeight = settings.getInt("imageHeight", m_imageHeight);
-        m_image = settings.getByteArray("image", m_image);
+        m_densityThreshold = settings.getInt("densityThreshold", DensityRenderer.DEFAULT_THRESHOLD);
+        m_svgImage = settings.getBoolean("svgImage", false);
+        m_publishStatistics = settings.getBoolean("publishStatistics", false);
+        loadGenerator(settings);
+        loadInput(settings);
+    }
+
+    private void loadGenerator(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_generatorEnabled = settings.getBoolean("generatorEnabled", false);
+        String shape = settings.getString("generatorShape", PointGenerator.Shape.BLOBS.name());
+        try {
+            m_generatorShape = PointGenerator.Shape.valueOf(shape);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSettingsException("Unknown generator shape: " + shape, e);
+        }
+        int points = settings.getInt("generatorPoints", 10000);
+        if (points < 1 || points > PointGenerator.MAX_POINTS) {
+            throw new InvalidSettingsException("The number of generated points must be between 1 and "
+                    + PointGenerator.MAX_POINTS + ", but is " + points);
+        }
+        m_generatorPoints = points;
+        m_generatorClasses = settings.getInt("generatorClasses", 2);
+        m_generatorNoise = settings.getDouble("generatorNoise", 0.1);
+        m_generatorSeed = settings.getLong("generatorSeed", 1);
+    }
+
+    private void loadInput(final NodeSettingsRO settings) {
+        m_useInputPoints = settings.getBoolean("useInputPoints", true);
+        m_inputXColumn = settings.getString("inputXColumn", null);
+        m_inputYColumn = settings.getString("inputYColumn", null);
+        m_inputClassColumn = settings.getString("inputClassColumn", null);
+    }
+
+    private void loadPoints(final NodeSettingsRO settings) throws InvalidSettingsException {
+        m_pointData = null;
+        if (settings.containsKey("pointData")) {
+            m_pointData = settings.getString("pointData");
+            if (m_pointData == null) {
+                throw new InvalidSettingsException("Invalid point data: missing");
+            }
+            return;
+        }
+
+        // settings of older versions store the points as arrays
+        double[] pointsY = settings.getDoubleArray("pointsY", new double[0]);
+        double[] pointsX = settings.getDoubleArray("pointsX", new double[0]);
+        int[] pointsClasses = settings.getIntArray("pointsClasses", new int[0]);
+        if (pointsX == null || pointsY == null || pointsClasses == null) {
+            m_points = new PointStore(0);
+        } else {
+            m_points = PointStore.wrap(pointsX, pointsY, pointsClasses);
+        }
+    }
+
+    /**
+     * Decodes the points of the loaded settings, unless that has already been done or the points have been taken
+     * from the node internals.
+     *
+     * @throws InvalidSettingsException
+     *             If the point data is invalid.
+     */
+    void decodePoints() throws InvalidSettingsException {
+        if (m_pointData == null) {
+            return;
+        }
+        try {
+            m_points = PointCodec.decode(DatatypeConverter.parseBase64Binary(m_pointData));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSettingsException("Invalid point data: " + e.getMessage(), e);
+        }
+        m_pointData = null;
+    }
+
+    /**
+     * Sets the points stored in the node internals instead of decoding the points of the settings, but only if they
+     * match the number and checksum of the points in the settings.
+     *
+     * @param points
+     *            the points read from the node internals
+     * @return true if the points match the settings and have been set, false otherwise
+     */
+    boolean setStoredPoints(final PointStore points) {
+        if (m_pointData == null || points.size() != m_pointCount
+                || PointStoreFile.checksum(points) != m_pointChecksum) {
+            return false;
+        }
+        m_points = points;
+        m_pointData = null;
+        return true;
+    }
+
+    /**
+     * @return true if the points of the loaded settings haven't been decoded or taken from the node internals yet
+     */
+    boolean hasEncodedPoints() {
+        return m_pointData != null;
+    }
+
+    /**
+     * @return the number of points, also if they haven't been decoded yet
+     */
+    int getPointCount() {
+        return m_pointData != null ? m_pointCount : m_points.size();
     }
 
     /**
@@ -234,63 +405,198 @@ public class CoordinatePanelNodeConfiguration {
     }
 
     /**
-     * @return the m_pointsX
+     * @return the points of the coordinate panel
+     */
+    PointStore getPoints() {
+        if (m_pointData != null) {
+            throw new IllegalStateException("The points haven't been decoded yet");
+        }
+        return m_points;
+    }
+
+    /**
+     * @param newPoints
+     *            the points to set, the store is used directly and not copied
+     */
+    void setPoints(final PointStore newPoints) {
+        this.m_points = newPoints;
+        this.m_pointData = null;
+    }
+
+    /**
+     * @return true if the points of an executed node are stored in its internals instead of the settings
+     */
+    boolean isStorePointsInInternals() {
+        return m_storePointsInInternals;
+    }
+
+    /**
+     * @param storePointsInInternals
+     *            true if the points of an executed node should be stored in its internals instead of the settings
+     */
+    void setStorePointsInInternals(final boolean storePointsInInternals) {
+        this.m_storePointsInInternals = storePointsInInternals;
+    }
+
+    /**
+     * @return the generator for the settings of the generator mode or null if the generator mode is disabled
+     */
+    PointGenerator createGenerator() {
+        if (!m_generatorEnabled) {
+            return null;
+        }
+        return new PointGenerator(m_generatorShape, m_generatorPoints, m_generatorClasses, m_generatorNoise,
+                m_generatorSeed);
+    }
+
+    /**
+     * @return true if the points are sampled from a shape, the points of the coordinate panel are its anchors
+     */
+    boolean isGeneratorEnabled() {
+        return m_generatorEnabled;
+    }
+
+    /**
+     * @param generatorEnabled
+     *            true if the points should be sampled from a shape
+     */
+    void setGeneratorEnabled(final boolean generatorEnabled) {
+        this.m_generatorEnabled = generatorEnabled;
+    }
+
+    /**
+     * @return the shape the points are sampled from
+     */
+    PointGenerator.Shape getGeneratorShape() {
+        return m_generatorShape;
+    }
+
+    /**
+     * @param generatorShape
+     *            the shape the points are sampled from
+     */
+    void setGeneratorShape(final PointGenerator.Shape generatorShape) {
+        this.m_generatorShape = generatorShape;
+    }
+
+    /**
+     * @return the number of sampled points
      */
-    double[] getPointsX() {
-        return m_pointsX;
+    int getGeneratorPoints() {
+        return m_generatorPoints;
     }
 
     /**
-     * @param newPointsX
-     *            the m_pointsX to set
+     * @param generatorPoints
+     *            the number of sampled points
      */
-    void setPointsX(final double[] newPointsX) {
-        this.m_pointsX = newPointsX;
+    void setGeneratorPoints(final int generatorPoints) {
+        this.m_generatorPoints = generatorPoints;
     }
 
     /**
-     * @return the m_pointsY
+     * @return the number of classes of the sampled points
      */
-    double[] getPointsY() {
-        return m_pointsY;
+    int getGeneratorClasses() {
+        return m_generatorClasses;
     }
 
     /**
-     * @param newPointsY
-     *            the m_pointsY to set
+     * @param generatorClasses
+     *            the number of classes of the sampled points
      */
-    void setPointsY(final double[] newPointsY) {
-        this.m_pointsY = newPointsY;
+    void setGeneratorClasses(final int generatorClasses) {
+        this.m_generatorClasses = generatorClasses;
     }
 
     /**
-     * @return the m_pointsClasses
+     * @return the standard deviation of the noise, relative to half the axis range
      */
-    int[] getPointsClasses() {
-        return m_pointsClasses;
+    double getGeneratorNoise() {
+        return m_generatorNoise;
     }
 
     /**
-     * @param newPointsClasses
-     *            the m_pointsClasses to set
+     * @param generatorNoise
+     *            the standard deviation of the noise, relative to half the axis range
      */
-    void setPointsClasses(final int[] newPointsClasses) {
-        this.m_pointsClasses = newPointsClasses;
+    void setGeneratorNoise(final double generatorNoise) {
+        this.m_generatorNoise = generatorNoise;
     }
 
     /**
-     * @return byte representation of the image of the coordinate panel
+     * @return the seed of the random streams
      */
-    byte[] getImage() {
-        return m_image;
+    long getGeneratorSeed() {
+        return m_generatorSeed;
     }
 
     /**
-     * @param newImage
-     *            the m_image to set
+     * @param generatorSeed
+     *            the seed of the random streams
      */
-    void setImage(final byte[] newImage) {
-        this.m_image = newImage;
+    void setGeneratorSeed(final long generatorSeed) {
+        this.m_generatorSeed = generatorSeed;
+    }
+
+    /**
+     * @return true if the points of the input table are added to the output
+     */
+    boolean isUseInputPoints() {
+        return m_useInputPoints;
+    }
+
+    /**
+     * @param useInputPoints
+     *            true if the points of the input table are added to the output
+     */
+    void setUseInputPoints(final boolean useInputPoints) {
+        this.m_useInputPoints = useInputPoints;
+    }
+
+    /**
+     * @return the name of the x coordinate column of the input table
+     */
+    String getInputXColumn() {
+        return m_inputXColumn;
+    }
+
+    /**
+     * @param inputXColumn
+     *            the name of the x coordinate column of the input table
+     */
+    void setInputXColumn(final String inputXColumn) {
+        this.m_inputXColumn = inputXColumn;
+    }
+
+    /**
+     * @return the name of the y coordinate column of the input table
+     */
+    String getInputYColumn() {
+        return m_inputYColumn;
+    }
+
+    /**
+     * @param inputYColumn
+     *            the name of the y coordinate column of the input table
+     */
+    void setInputYColumn(final String inputYColumn) {
+        this.m_inputYColumn = inputYColumn;
+    }
+
+    /**
+     * @return the name of the class column of the input table
+     */
+    String getInputClassColumn() {
+        return m_inputClassColumn;
+    }
+
+    /**
+     * @param inputClassColumn
+     *            the name of the class column of the input table
+     */
+    void setInputClassColumn(final String inputClassColumn) {
+        this.m_inputClassColumn = inputClassColumn;
     }
 
     /**
@@ -323,4 +629,109 @@ public class CoordinatePanelNodeConfiguration {
         this.m_imageHeight = newHeight;
     }
 
+    /**
+     * @return the number of points above which the points are rendered as a density image
+     */
+    int getDensityThreshold() {
+        return m_densityThreshold;
+    }
+
+    /**
+     * @param newDensityThreshold
+     *            the number of points above which the points are rendered as a density image
+     */
+    void setDensityThreshold(final int newDensityThreshold) {
+        this.m_densityThreshold = newDensityThreshold;
+    }
+
+    /**
+     * @return true if the image is written as SVG instead of PNG
+     */
+    boolean isSvgImage() {
+        return m_svgImage;
+    }
+
+    /**
+     * @param svgImage
+     *            true if the image is written as SVG instead of PNG
+     */
+    void setSvgImage(final boolean svgImage) {
+        this.m_svgImage = svgImage;
+    }
+
+    /**
+     * @return true if the statistics of an execution are published as flow variables
+     */
+    boolean isPublishStatistics() {
+        return m_publishStatistics;
+    }
+
+    /**
+     * @param publishStatistics
+     *            true if the statistics of an execution are published as flow variables
+     */
+    void setPublishStatistics(final boolean publishStatistics) {
+        this.m_publishStatistics = publishStatistics;
+    }
+
+    /**
+     * Computes a hash of everything the image of the coordinate panel depends on: ranges, grid, image size and format,
+     * density threshold and points. Two configurations with the same hash produce the same image.
+     *
+     * @return the hash as hexadecimal string
+     */
+    String getContentHash() {
+        return getContentHash(null);
+    }
+
+    /**
+     * Computes a hash of everything the image of the coordinate panel depends on, including the points read from the
+     * input table.
+     *
+     * @param inputPoints
+     *            the points of the input table or null if there are none
+     * @return the hash as hexadecimal string
+     */
+    String getContentHash(final PointStore inputPoints) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        buffer.putInt(m_minY).putInt(m_maxY).putInt(m_minX).putInt(m_maxX).putInt(m_gridY).putInt(m_gridX);
+        buffer.putInt(m_imageWidth).putInt(m_imageHeight).putInt(m_densityThreshold).put((byte) (m_svgImage ? 1 : 0));
+        buffer.put((byte) (m_generatorEnabled ? 1 : 0)).putInt(m_generatorShape.ordinal()).putInt(m_generatorPoints)
+                .putInt(m_generatorClasses).putDouble(m_generatorNoise).putLong(m_generatorSeed);
+        updateDigest(digest, buffer, getPoints());
+        if (inputPoints != null) {
+            updateDigest(digest, buffer, inputPoints);
+        }
+        digest.update(buffer.array(), 0, buffer.position());
+
+        StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hash.toString();
+    }
+
+    private static void updateDigest(final MessageDigest digest, final ByteBuffer buffer, final PointStore points) {
+        if (buffer.remaining() < 4) {
+            digest.update(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        buffer.putInt(points.size());
+        for (int i = 0; i < points.size(); i++) {
+            if (buffer.remaining() < 17) {
+                digest.update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+            buffer.putDouble(points.getX(i)).putDouble(points.getY(i)).put((byte) points.getPointClass(i));
+        }
+    }
+
 }
@@ -47,55 +47,65 @@
  */
 package org.knime.datageneration.coordinate;
 
-import java.awt.BasicStroke;
+import java.awt.AlphaComposite;
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Dimension;
-import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
-import java.awt.Stroke;
+import java.awt.Shape;
+import java.awt.Transparency;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.awt.event.MouseWheelEvent;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.text.DecimalFormat;
-import java.util.ArrayList;
-import java.util.List;
 
-import javax.imageio.ImageIO;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
+import org.knime.core.data.DataColumnSpec;
 import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataValue;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DataAwareNodeDialogPane;
+import org.knime.core.node.ExecutionMonitor;
 import org.knime.core.node.InvalidSettingsException;
-import org.knime.core.node.NodeDialogPane;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.NotConfigurableException;
+import org.knime.core.node.streamable.DataTableRowInput;
 
 /**
  * Custom configuration dialog for the coordinate panel node.
  *
  * @author Daniel Seebacher, University of Konstanz.
  */
-public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
+public final class CoordinatePanelNodeDialogPane extends DataAwareNodeDialogPane {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(CoordinatePanelNodeDialogPane.class);
 
@@ -111,6 +121,11 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
     private JSpinner m_pointsClassSpinner;
     private JButton m_clearAllButton;
 
+    private JCheckBox m_brushCheckbox;
+    private JSpinner m_brushRadiusSpinner;
+    private JSpinner m_brushCountSpinner;
+    private JComboBox<Brush.Distribution> m_brushDistributionBox;
+
     private JSpinner m_minYSpinner;
     private JSpinner m_maxYSpinner;
     private JSpinner m_minXSpinner;
@@ -121,6 +136,29 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
     private JPanel m_imageSettingsPanel;
     private JSpinner m_imageWidthSpinner;
     private JSpinner m_imageHeightSpinner;
+    private JSpinner m_densityThresholdSpinner;
+    private JCheckBox m_storePointsInInternalsCheckbox;
+    private JCheckBox m_svgImageCheckbox;
+    private JCheckBox m_publishStatisticsCheckbox;
+
+    private JPanel m_generatorSettingsPanel;
+    private JCheckBox m_generatorCheckbox;
+    private JComboBox<PointGenerator.Shape> m_generatorShapeBox;
+    private JSpinner m_generatorPointsSpinner;
+    private JSpinner m_generatorClassesSpinner;
+    private JSpinner m_generatorNoiseSpinner;
+    private JSpinner m_generatorSeedSpinner;
+
+    private JPanel m_inputSettingsPanel;
+    private JCheckBox m_useInputPointsCheckbox;
+    private JComboBox<String> m_inputXColumnBox;
+    private JComboBox<String> m_inputYColumnBox;
+    private JComboBox<String> m_inputClassColumnBox;
+    private JButton m_importInputPointsButton;
+
+    // the input table if its data is available, only needed to import its
+    // points into the coordinate panel
+    private BufferedDataTable m_inputTable;
 
     /**
      * Default constructor. Creates GUI Elements and initializes components with default values.
@@ -139,6 +177,14 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
         m_imageSettingsPanel = createImageSettingsPanel();
         addTab("Image Settings", m_imageSettingsPanel);
 
+        // Create Generator Settings Panel
+        m_generatorSettingsPanel = createGeneratorSettingsPanel();
+        addTab("Generator", m_generatorSettingsPanel);
+
+        // Create Input Settings Panel
+        m_inputSettingsPanel = createInputSettingsPanel();
+        addTab("Input", m_inputSettingsPanel);
+
         // Add necessary event listeners
         addListeners();
     }
@@ -186,6 +232,58 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
         m_gridYSpinner.addChangeListener(cl);
         m_gridXSpinner.addChangeListener(cl);
 
+        // the density threshold also applies to the coordinate panel
+        m_densityThresholdSpinner.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(final ChangeEvent e) {
+                m_coordinatePanel.setDensityThreshold((Integer) m_densityThresholdSpinner.getValue());
+            }
+        });
+
+        // the generator settings change the preview of the coordinate panel
+        ChangeListener gcl = new ChangeListener() {
+            @Override
+            public void stateChanged(final ChangeEvent e) {
+                updateGenerator();
+            }
+        };
+        m_generatorCheckbox.addChangeListener(gcl);
+        m_generatorPointsSpinner.addChangeListener(gcl);
+        m_generatorClassesSpinner.addChangeListener(gcl);
+        m_generatorNoiseSpinner.addChangeListener(gcl);
+        m_generatorSeedSpinner.addChangeListener(gcl);
+        m_generatorShapeBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                updateGenerator();
+            }
+        });
+
+        // the brush settings and the class of new points change the brush
+        ChangeListener bcl = new ChangeListener() {
+            @Override
+            public void stateChanged(final ChangeEvent e) {
+                updateBrush();
+            }
+        };
+        m_brushCheckbox.addChangeListener(bcl);
+        m_brushRadiusSpinner.addChangeListener(bcl);
+        m_brushCountSpinner.addChangeListener(bcl);
+        m_pointsClassSpinner.addChangeListener(bcl);
+        m_brushDistributionBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                updateBrush();
+            }
+        });
+
+        m_importInputPointsButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent e) {
+                importInputPoints();
+            }
+        });
+
         // MouseListener for coordinate panel, left click adds a point, right
         // click removes one
         MouseListener ml = new MouseListener() {
@@ -196,7 +294,13 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
 
             @Override
             public void mousePressed(final MouseEvent e) {
-                if (SwingUtilities.isLeftMouseButton(e)) {
+                if (CoordinatePanel.isPanTrigger(e)) {
+                    // the coordinate panel moves its viewport
+                    return;
+                } else if (SwingUtilities.isLeftMouseButton(e) && m_brushCheckbox.isSelected()) {
+                    // dragging sprays further points, see the coordinate panel
+                    m_coordinatePanel.sprayPoints(e.getX(), e.getY());
+                } else if (SwingUtilities.isLeftMouseButton(e)) {
                     m_coordinatePanel.addPoint(e.getX(), e.getY(), (Integer) m_pointsClassSpinner.getValue(),
                             m_snapToGridCheckbox.isSelected());
                 } else if (SwingUtilities.isRightMouseButton(e)) {
@@ -237,8 +341,35 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
         m_pointsClassSpinner = new JSpinner();
         m_snapToGridCheckbox = new JCheckBox();
 
+        m_brushCheckbox = new JCheckBox();
+        m_brushRadiusSpinner = new JSpinner(new SpinnerNumberModel(20, 1, 500, 1));
+        m_brushCountSpinner = new JSpinner(new SpinnerNumberModel(10, 1, 1000, 1));
+        m_brushDistributionBox = new JComboBox<Brush.Distribution>(Brush.Distribution.values());
+
         m_imageWidthSpinner = new JSpinner();
         m_imageHeightSpinner = new JSpinner();
+        m_densityThresholdSpinner = new JSpinner();
+        m_storePointsInInternalsCheckbox = new JCheckBox();
+        m_svgImageCheckbox = new JCheckBox();
+        m_publishStatisticsCheckbox = new JCheckBox();
+
+        m_generatorCheckbox = new JCheckBox();
+        m_generatorShapeBox = new JComboBox<PointGenerator.Shape>(PointGenerator.Shape.values());
+        m_generatorPointsSpinner = new JSpinner(new SpinnerNumberModel(10000, 1, PointGenerator.MAX_POINTS, 1000));
+        ((JSpinner.DefaultEditor) m_generatorPointsSpinner.getEditor()).getTextField().setColumns(COLUMN_WIDTH);
+        m_generatorClassesSpinner = new JSpinner(new SpinnerNumberModel(2, 1, 54, 1));
+        ((JSpinner.DefaultEditor) m_generatorClassesSpinner.getEditor()).getTextField().setColumns(COLUMN_WIDTH);
+        m_generatorNoiseSpinner = new JSpinner(new SpinnerNumberModel(0.1, 0.0, 10.0, 0.01));
+        ((JSpinner.DefaultEditor) m_generatorNoiseSpinner.getEditor()).getTextField().setColumns(COLUMN_WIDTH);
+        m_generatorSeedSpinner = new JSpinner(new SpinnerNumberModel(1, Integer.MIN_VALUE, Integer.MAX_VALUE, 1));
+        ((JSpinner.DefaultEditor) m_generatorSeedSpinner.getEditor()).getTextField().setColumns(COLUMN_WIDTH);
+
+        m_useInputPointsCheckbox = new JCheckBox();
+        m_inputXColumnBox = new JComboBox<String>();
+        m_inputYColumnBox = new JComboBox<String>();
+        m_inputClassColumnBox = new JComboBox<String>();
+        m_importInputPointsButton = new JButton("Import input points");
+        m_importInputPointsButton.setEnabled(false);
 
         // set default values
         m_coordinatePanel = new CoordinatePanel(MIN_XY, MAX_XY, MIN_XY, MAX_XY, GRID_XY, GRID_XY);
@@ -270,6 +401,10 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
 
         m_imageHeightSpinner.setModel(new SpinnerNumberModel(800, 256, 16384, 1));
         ((JSpinner.DefaultEditor) m_imageHeightSpinner.getEditor()).getTextField().setColumns(COLUMN_WIDTH);
+
+        m_densityThresholdSpinner.setModel(new SpinnerNumberModel(DensityRenderer.DEFAULT_THRESHOLD, 0,
+                Integer.MAX_VALUE, 1000));
+        ((JSpinner.DefaultEditor) m_densityThresholdSpinner.getEditor()).getTextField().setColumns(COLUMN_WIDTH);
     }
 
     /**
@@ -370,8 +505,36 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
         thirdPanel.add(Box.createRigidArea(new Dimension(25, 15)));
         thirdPanel.add(m_clearAllButton);
 
-        // add the third panel to the layoutpanel
-        settingsPanel.add(thirdPanel, BorderLayout.NORTH);
+        // Create a fourth JPanel which holds the settings of the brush
+        JPanel brushPanel = new JPanel();
+        brushPanel.setLayout(new BoxLayout(brushPanel, BoxLayout.X_AXIS));
+
+        brushPanel.add(Box.createHorizontalGlue());
+        brushPanel.add(new JLabel("Brush"));
+        brushPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        brushPanel.add(m_brushCheckbox);
+        brushPanel.add(Box.createRigidArea(new Dimension(25, 15)));
+        brushPanel.add(new JLabel("Radius (px)"));
+        brushPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        brushPanel.add(m_brushRadiusSpinner);
+        m_brushRadiusSpinner.setMaximumSize(new Dimension(100, 25));
+        brushPanel.add(Box.createRigidArea(new Dimension(25, 15)));
+        brushPanel.add(new JLabel("Points"));
+        brushPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        brushPanel.add(m_brushCountSpinner);
+        m_brushCountSpinner.setMaximumSize(new Dimension(100, 25));
+        brushPanel.add(Box.createRigidArea(new Dimension(25, 15)));
+        brushPanel.add(m_brushDistributionBox);
+        m_brushDistributionBox.setMaximumSize(new Dimension(150, 25));
+        brushPanel.add(Box.createHorizontalGlue());
+
+        // add the third and the fourth panel to the layoutpanel
+        JPanel northPanel = new JPanel();
+        northPanel.setLayout(new BoxLayout(northPanel, BoxLayout.Y_AXIS));
+        northPanel.add(thirdPanel);
+        northPanel.add(Box.createRigidArea(new Dimension(5, 5)));
+        northPanel.add(brushPanel);
+        settingsPanel.add(northPanel, BorderLayout.NORTH);
 
         return settingsPanel;
     }
@@ -404,19 +567,237 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
         m_imageHeightSpinner.setMaximumSize(new Dimension(0, 25));
         imageSettingsPanel.add(heightBox);
 
+        imageSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+
+        Box densityBox = Box.createHorizontalBox();
+        densityBox.add(Box.createHorizontalGlue());
+        densityBox.add(new JLabel("Density rendering above (points): "));
+        densityBox.add(Box.createRigidArea(new Dimension(5, 15)));
+        densityBox.add(m_densityThresholdSpinner);
+        densityBox.add(Box.createHorizontalGlue());
+        m_densityThresholdSpinner.setMaximumSize(new Dimension(0, 25));
+        imageSettingsPanel.add(densityBox);
+
+        imageSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+
+        Box svgBox = Box.createHorizontalBox();
+        svgBox.add(Box.createHorizontalGlue());
+        svgBox.add(new JLabel("Vector image (SVG): "));
+        svgBox.add(Box.createRigidArea(new Dimension(5, 15)));
+        svgBox.add(m_svgImageCheckbox);
+        svgBox.add(Box.createHorizontalGlue());
+        imageSettingsPanel.add(svgBox);
+
+        imageSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+
+        Box storageBox = Box.createHorizontalBox();
+        storageBox.add(Box.createHorizontalGlue());
+        storageBox.add(new JLabel("Store points in node internals: "));
+        storageBox.add(Box.createRigidArea(new Dimension(5, 15)));
+        storageBox.add(m_storePointsInInternalsCheckbox);
+        storageBox.add(Box.createHorizontalGlue());
+        imageSettingsPanel.add(storageBox);
+
+        imageSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+
+        Box statisticsBox = Box.createHorizontalBox();
+        statisticsBox.add(Box.createHorizontalGlue());
+        statisticsBox.add(new JLabel("Publish execution statistics as flow variables: "));
+        statisticsBox.add(Box.createRigidArea(new Dimension(5, 15)));
+        statisticsBox.add(m_publishStatisticsCheckbox);
+        statisticsBox.add(Box.createHorizontalGlue());
+        imageSettingsPanel.add(statisticsBox);
+
         imageSettingsPanel.add(Box.createVerticalGlue());
 
         return imageSettingsPanel;
     }
 
+    private JPanel createGeneratorSettingsPanel() {
+        JPanel generatorSettingsPanel = new JPanel();
+        generatorSettingsPanel.setLayout(new BoxLayout(generatorSettingsPanel, BoxLayout.Y_AXIS));
+        generatorSettingsPanel.add(Box.createVerticalGlue());
+
+        Box enabledBox = Box.createHorizontalBox();
+        enabledBox.add(Box.createHorizontalGlue());
+        enabledBox.add(new JLabel("Sample points from a shape: "));
+        enabledBox.add(Box.createRigidArea(new Dimension(5, 15)));
+        enabledBox.add(m_generatorCheckbox);
+        enabledBox.add(Box.createHorizontalGlue());
+        generatorSettingsPanel.add(enabledBox);
+
+        generatorSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        generatorSettingsPanel.add(createGeneratorBox("Shape: ", m_generatorShapeBox));
+        generatorSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        generatorSettingsPanel.add(createGeneratorBox("Number of points: ", m_generatorPointsSpinner));
+        generatorSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        generatorSettingsPanel.add(createGeneratorBox("Number of classes: ", m_generatorClassesSpinner));
+        generatorSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        generatorSettingsPanel.add(createGeneratorBox("Noise: ", m_generatorNoiseSpinner));
+        generatorSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        generatorSettingsPanel.add(createGeneratorBox("Seed: ", m_generatorSeedSpinner));
+
+        generatorSettingsPanel.add(Box.createVerticalGlue());
+
+        return generatorSettingsPanel;
+    }
+
+    private static Box createGeneratorBox(final String label, final JComponent component) {
+        Box box = Box.createHorizontalBox();
+        box.add(Box.createHorizontalGlue());
+        box.add(new JLabel(label));
+        box.add(Box.createRigidArea(new Dimension(5, 15)));
+        box.add(component);
+        box.add(Box.createHorizontalGlue());
+        component.setMaximumSize(new Dimension(200, 25));
+        return box;
+    }
+
+    private JPanel createInputSettingsPanel() {
+        JPanel inputSettingsPanel = new JPanel();
+        inputSettingsPanel.setLayout(new BoxLayout(inputSettingsPanel, BoxLayout.Y_AXIS));
+        inputSettingsPanel.add(Box.createVerticalGlue());
+
+        Box useBox = Box.createHorizontalBox();
+        useBox.add(Box.createHorizontalGlue());
+        useBox.add(new JLabel("Add the points of the input table: "));
+        useBox.add(Box.createRigidArea(new Dimension(5, 15)));
+        useBox.add(m_useInputPointsCheckbox);
+        useBox.add(Box.createHorizontalGlue());
+        inputSettingsPanel.add(useBox);
+
+        inputSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        inputSettingsPanel.add(createGeneratorBox("X coordinate column: ", m_inputXColumnBox));
+        inputSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        inputSettingsPanel.add(createGeneratorBox("Y coordinate column: ", m_inputYColumnBox));
+        inputSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        inputSettingsPanel.add(createGeneratorBox("Class column: ", m_inputClassColumnBox));
+
+        inputSettingsPanel.add(Box.createRigidArea(new Dimension(5, 15)));
+        Box importBox = Box.createHorizontalBox();
+        importBox.add(Box.createHorizontalGlue());
+        importBox.add(m_importInputPointsButton);
+        importBox.add(Box.createHorizontalGlue());
+        inputSettingsPanel.add(importBox);
+
+        inputSettingsPanel.add(Box.createVerticalGlue());
+
+        return inputSettingsPanel;
+    }
+
+    /**
+     * Fills a column selection box with the names of the compatible columns of the input table. The selected column
+     * is kept even if the table doesn't contain it, so the settings don't change if the input isn't connected.
+     */
+    private static void fillColumnBox(final JComboBox<String> box, final DataTableSpec spec,
+            final Class<? extends DataValue> valueClass, final String selected) {
+        box.removeAllItems();
+        boolean containsSelected = false;
+        if (spec != null) {
+            for (int i = 0; i < spec.getNumColumns(); i++) {
+                DataColumnSpec column = spec.getColumnSpec(i);
+                if (column.getType().isCompatible(valueClass)) {
+                    box.addItem(column.getName());
+                    containsSelected |= column.getName().equals(selected);
+                }
+            }
+        }
+        if (selected != null && !containsSelected) {
+            box.addItem(selected);
+        }
+        box.setSelectedItem(selected);
+    }
+
+    /**
+     * Reads the points of the input table into the coordinate panel, where they can be edited like clicked points.
+     * Afterwards the input points are no longer added to the output, as they would be contained twice.
+     */
+    private void importInputPoints() {
+        if (m_inputTable == null) {
+            return;
+        }
+
+        CoordinatePanelNodeConfiguration c = new CoordinatePanelNodeConfiguration();
+        c.setInputXColumn((String) m_inputXColumnBox.getSelectedItem());
+        c.setInputYColumn((String) m_inputYColumnBox.getSelectedItem());
+        c.setInputClassColumn((String) m_inputClassColumnBox.getSelectedItem());
+
+        DataTableRowInput input = new DataTableRowInput(m_inputTable);
+        try {
+            PointTableReader reader = new PointTableReader(m_inputTable.getDataTableSpec(), c);
+            m_coordinatePanel.loadPointList(reader.read(input, m_inputTable.size(), new ExecutionMonitor()));
+            m_useInputPointsCheckbox.setSelected(false);
+            if (reader.getSkippedRows() > 0) {
+                JOptionPane.showMessageDialog(m_inputSettingsPanel, reader.getSkippedRows()
+                        + " rows were skipped because of missing values or classes outside of 1-54.",
+                        "Import input points", JOptionPane.WARNING_MESSAGE);
+            }
+        } catch (InvalidSettingsException e) {
+            JOptionPane.showMessageDialog(m_inputSettingsPanel, e.getMessage(), "Import input points",
+                    JOptionPane.ERROR_MESSAGE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (CanceledExecutionException e) {
+            // can't happen, the monitor of the dialog is never canceled
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Hands the current brush settings to the coordinate panel.
+     */
+    private void updateBrush() {
+        if (m_brushCheckbox.isSelected()) {
+            m_coordinatePanel.setBrush(new Brush((Integer) m_brushRadiusSpinner.getValue(),
+                    (Integer) m_brushCountSpinner.getValue(),
+                    (Brush.Distribution) m_brushDistributionBox.getSelectedItem(),
+                    (Integer) m_pointsClassSpinner.getValue()));
+        } else {
+            m_coordinatePanel.setBrush(null);
+        }
+    }
+
+    /**
+     * Hands the current generator settings to the coordinate panel, which shows a preview of the sampled points.
+     */
+    private void updateGenerator() {
+        if (m_generatorCheckbox.isSelected()) {
+            m_coordinatePanel.setGenerator(new PointGenerator((PointGenerator.Shape) m_generatorShapeBox
+                    .getSelectedItem(), (Integer) m_generatorPointsSpinner.getValue(),
+                    (Integer) m_generatorClassesSpinner.getValue(), (Double) m_generatorNoiseSpinner.getValue(),
+                    (Integer) m_generatorSeedSpinner.getValue()));
+        } else {
+            m_coordinatePanel.setGenerator(null);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected void loadSettingsFrom(final NodeSettingsRO settings, final BufferedDataTable[] input)
+            throws NotConfigurableException {
+        loadSettingsFrom(settings, new DataTableSpec[] {input[0] == null ? null : input[0].getDataTableSpec()});
+        m_inputTable = input[0];
+        m_importInputPointsButton.setEnabled(m_inputTable != null);
+    }
+
     /** {@inheritDoc} */
     @Override
     protected void loadSettingsFrom(final NodeSettingsRO settings, final DataTableSpec[] specs)
             throws NotConfigurableException {
+        m_inputTable = null;
+        m_importInputPointsButton.setEnabled(false);
 
         // Load Configurations
+        ExecutionStatistics statistics = new ExecutionStatistics("dialog load");
+        ExecutionStatistics.Phase phase = statistics.start("loadSettings");
         CoordinatePanelNodeConfiguration c = new CoordinatePanelNodeConfiguration();
-        c.loadConfigurationInDialog(settings);
+        try {
+            c.loadConfigurationInDialog(settings);
+        } catch (InvalidSettingsException e) {
+            throw new NotConfigurableException(e.getMessage());
+        }
+        phase.stop();
 
         // Set Models for the JSpinners and set the max. column size to 11 (max
         // integer length + minus sign)
@@ -442,23 +823,42 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
         m_coordinatePanel.setGridX(c.getGridX());
 
         // load points (if there are any)
-        double[] pointsX = c.getPointsX();
-        double[] pointsY = c.getPointsY();
-        int[] pointsClasses = c.getPointsClasses();
-
-        if (pointsX != null && pointsY != null && pointsClasses != null) {
-            List<Point> points = new ArrayList<Point>();
-            for (int i = 0; i < pointsX.length; i++) {
-                points.add(new Point(pointsX[i], pointsY[i], pointsClasses[i]));
-            }
-            m_coordinatePanel.loadPointList(points);
-        }
+        phase = statistics.start("loadPoints");
+        m_coordinatePanel.loadPointList(c.getPoints());
+        phase.stop();
+        statistics.set("points", c.getPoints().size());
+        statistics.log(LOGGER);
 
         m_imageWidthSpinner.setModel(new SpinnerNumberModel(c.getImageWidth(), 256, 16384, 1));
         ((JSpinner.DefaultEditor) m_imageWidthSpinner.getEditor()).getTextField().setColumns(COLUMN_WIDTH);
 
         m_imageHeightSpinner.setModel(new SpinnerNumberModel(c.getImageHeight(), 256, 16384, 1));
         ((JSpinner.DefaultEditor) m_imageHeightSpinner.getEditor()).getTextField().setColumns(COLUMN_WIDTH);
+
+        m_densityThresholdSpinner.setModel(new SpinnerNumberModel(c.getDensityThreshold(), 0, Integer.MAX_VALUE,
+                1000));
+        ((JSpinner.DefaultEditor) m_densityThresholdSpinner.getEditor()).getTextField().setColumns(COLUMN_WIDTH);
+        m_coordinatePanel.setDensityThreshold(c.getDensityThreshold());
+        m_storePointsInInternalsCheckbox.setSelected(c.isStorePointsInInternals());
+        m_svgImageCheckbox.setSelected(c.isSvgImage());
+        m_publishStatisticsCheckbox.setSelected(c.isPublishStatistics());
+
+        m_generatorCheckbox.setSelected(c.isGeneratorEnabled());
+        m_generatorShapeBox.setSelectedItem(c.getGeneratorShape());
+        m_generatorPointsSpinner.setValue(c.getGeneratorPoints());
+        m_generatorClassesSpinner.setValue(c.getGeneratorClasses());
+        m_generatorNoiseSpinner.setValue(c.getGeneratorNoise());
+        m_generatorSeedSpinner.setValue((int) c.getGeneratorSeed());
+        updateGenerator();
+
+        DataTableSpec inSpec = specs.length > 0 ? specs[0] : null;
+        if (inSpec != null) {
+            PointTableReader.guessColumns(inSpec, c);
+        }
+        m_useInputPointsCheckbox.setSelected(c.isUseInputPoints());
+        fillColumnBox(m_inputXColumnBox, inSpec, DoubleValue.class, c.getInputXColumn());
+        fillColumnBox(m_inputYColumnBox, inSpec, DoubleValue.class, c.getInputYColumn());
+        fillColumnBox(m_inputClassColumnBox, inSpec, IntValue.class, c.getInputClassColumn());
     }
 
     /** {@inheritDoc} */
@@ -467,68 +867,50 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
 
         CoordinatePanelNodeConfiguration c = new CoordinatePanelNodeConfiguration();
 
-        // save dimensions for the coordinate panel
-        c.setMinY((Integer) m_minYSpinner.getValue());
-        c.setMaxY((Integer) m_maxYSpinner.getValue());
-        c.setMinX((Integer) m_minXSpinner.getValue());
-        c.setMaxX((Integer) m_maxXSpinner.getValue());
-        c.setGridY((Integer) m_gridYSpinner.getValue());
-        c.setGridX((Integer) m_gridXSpinner.getValue());
-
-        // Transform the point list into three arrays to save them with
-        // settings.addArray
-        List<Point> points = m_coordinatePanel.getPoints();
-        if (points != null && !points.isEmpty()) {
-            double[] pointsX = new double[points.size()];
-            double[] pointsY = new double[points.size()];
-            int[] pointsClasses = new int[points.size()];
-
-            for (int i = 0; i < points.size(); i++) {
-                pointsX[i] = points.get(i).getX();
-                pointsY[i] = points.get(i).getY();
-                pointsClasses[i] = points.get(i).getPointClass();
-            }
-
-            c.setPointsX(pointsX);
-            c.setPointsY(pointsY);
-            c.setPointsClasses(pointsClasses);
-        }
+        // save dimensions and points of the coordinate panel, the snapshot
+        // shares the points with the panel until the panel changes them
+        ExecutionStatistics statistics = new ExecutionStatistics("dialog save");
+        ExecutionStatistics.Phase phase = statistics.start("snapshot");
+        CoordinatePanelSnapshot snapshot = new CoordinatePanelSnapshot((Integer) m_minYSpinner.getValue(),
+                (Integer) m_maxYSpinner.getValue(), (Integer) m_minXSpinner.getValue(),
+                (Integer) m_maxXSpinner.getValue(), (Integer) m_gridYSpinner.getValue(),
+                (Integer) m_gridXSpinner.getValue(), m_coordinatePanel.snapshotPoints());
+        snapshot.applyTo(c);
+        phase.stop();
+
+        c.setStorePointsInInternals(m_storePointsInInternalsCheckbox.isSelected());
+
+        c.setGeneratorEnabled(m_generatorCheckbox.isSelected());
+        c.setGeneratorShape((PointGenerator.Shape) m_generatorShapeBox.getSelectedItem());
+        c.setGeneratorPoints((Integer) m_generatorPointsSpinner.getValue());
+        c.setGeneratorClasses((Integer) m_generatorClassesSpinner.getValue());
+        c.setGeneratorNoise((Double) m_generatorNoiseSpinner.getValue());
+        c.setGeneratorSeed((Integer) m_generatorSeedSpinner.getValue());
+
+        c.setUseInputPoints(m_useInputPointsCheckbox.isSelected());
+        c.setInputXColumn((String) m_inputXColumnBox.getSelectedItem());
+        c.setInputYColumn((String) m_inputYColumnBox.getSelectedItem());
+        c.setInputClassColumn((String) m_inputClassColumnBox.getSelectedItem());
 
         int imageWidth = (Integer) m_imageWidthSpinner.getValue();
         int imageHeight = (Integer) m_imageHeightSpinner.getValue();
         c.setImageWidth(imageWidth);
         c.setImageHeight(imageHeight);
-
-        // create image of the coordinate panel
-        CoordinatePanel copy = new CoordinatePanel(m_coordinatePanel);
-        copy.setSize(imageWidth, imageHeight);
-        BufferedImage bi = createBufferedImage(copy);
-        byte[] imageBytes = bufferedImageToByteArray(bi);
-        c.setImage(imageBytes);
-
+        c.setDensityThreshold((Integer) m_densityThresholdSpinner.getValue());
+        c.setSvgImage(m_svgImageCheckbox.isSelected());
+        c.setPublishStatistics(m_publishStatisticsCheckbox.isSelected());
+
+        // the image itself is created by the node model during execution. The
+        // settings always contain all points, the model of an executed node
+        // may additionally store them in its internals
+        phase = statistics.start("saveSettings");
         c.saveConfiguration(settings);
+        phase.stop();
+        statistics.set("points", c.getPoints().size());
+        statistics.log(LOGGER);
 
     }
 
-    private BufferedImage createBufferedImage(final CoordinatePanel cp) {
-        int w = cp.getWidth();
-        int h = cp.getHeight();
-        BufferedImage bi = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g = bi.createGraphics();
-        cp.paint(g);
-        return bi;
-    }
-
-    private byte[] bufferedImageToByteArray(final BufferedImage bi) {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try {
-            ImageIO.write(bi, "PNG", baos);
-        } catch (IOException e) {
-            LOGGER.error("Couldn't create an PNG Image of the Coordinate Panel", e);
-        }
-        return baos.toByteArray();
-    }
-
     /**
      * A coordinate panel which displays points.
      *
@@ -537,15 +919,57 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
     static class CoordinatePanel extends JPanel {
 
         private static final long serialVersionUID = 1L;
-        private double m_minY;
-        private double m_maxY;
-        private double m_minX;
-        private double m_maxX;
-        private double m_gridY;
-        private double m_gridX;
-        private static final int OFFSET = 20;
-
-        private final List<Point> m_points = new ArrayList<Point>();
+        private static final int OFFSET = CoordinatePanelRenderer.OFFSET;
+        private static final int PICK_RADIUS = 5; // max. screen distance to a point for picking it
+        private static final int POINT_SIZE = CoordinatePanelRenderer.POINT_SIZE;
+        private static final int PREVIEW_POINTS = 5000; // number of sampled points shown in generator mode
+        private static final float PREVIEW_ALPHA = 0.35f;
+        private static final int FRAME_DELAY = 16; // ms between two repaints while spraying
+        private static final double MAX_ZOOM = 1000; // max. ratio between the range of an axis and the visible range
+        private static final double ZOOM_STEP = 1.25; // zoom factor per notch of the mouse wheel
+        private static final int MINIMAP_SIZE = 120; // edge length of the overview shown while zoomed in
+        private static final int MINIMAP_MARGIN = 8;
+
+        // holds the axes and the grid and draws the panel
+        private final CoordinatePanelRenderer m_renderer;
+
+        private final PointStore m_points = new PointStore();
+        private final PointIndex m_index = new PointIndex();
+
+        // axes, grid lines and labels, rendered once and reused until the
+        // dimensions of the panel change
+        private BufferedImage m_background;
+
+        // all points, rendered once and updated incrementally when points are
+        // added or removed. While zoomed in, only the points inside the
+        // viewport are rendered and counted
+        private BufferedImage m_pointLayer;
+        private int m_visiblePoints;
+
+        // overview of the whole range while zoomed in, one pixel per cell of
+        // the point index
+        private BufferedImage m_minimap;
+
+        // the last mouse position while the viewport is dragged
+        private boolean m_panning;
+        private int m_panX;
+        private int m_panY;
+
+        // in generator mode the clicked points are the anchors of the shape,
+        // the first sampled points are shown translucent below them
+        private PointGenerator m_generator;
+        private PointStore m_preview;
+
+        // the brush sprays points while the mouse is dragged, null if the
+        // brush is disabled. Sprayed points are drawn into the point layer
+        // right away, the areas they cover are collected and repainted at
+        // most once per frame
+        private Brush m_brush;
+        private double[] m_sprayX = new double[0];
+        private double[] m_sprayY = new double[0];
+        private Rectangle m_sprayedRegion;
+        private boolean m_sprayedDensity;
+        private final Timer m_frameTimer;
 
         /**
          * Default constructor for the coordinate panel class.
@@ -569,37 +993,29 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
 
             setPreferredSize(new Dimension(500, 500));
 
-            this.m_minY = minY;
-            this.m_maxY = maxY;
-            this.m_minX = minX;
-            this.m_maxX = maxX;
-            this.m_gridY = gridY;
-            this.m_gridX = gridX;
+            m_renderer = new CoordinatePanelRenderer(minY, maxY, minX, maxX, gridY, gridX);
+            rebuildIndex();
 
             addMouseMotionListener(createMouseMotionListener());
-        }
 
-        /**
-         * Copy Constructor.
-         *
-         * @param cp
-         *            a CoordinatePanel
-         */
-        CoordinatePanel(final CoordinatePanel cp) {
-            super();
+            final MouseAdapter viewportListener = createViewportListener();
+            addMouseListener(viewportListener);
+            addMouseMotionListener(viewportListener);
+            addMouseWheelListener(viewportListener);
 
-            setPreferredSize(new Dimension(500, 500));
-
-            this.m_minY = cp.m_minY;
-            this.m_maxY = cp.m_maxY;
-            this.m_minX = cp.m_minX;
-            this.m_maxX = cp.m_maxX;
-            this.m_gridY = cp.m_gridY;
-            this.m_gridX = cp.m_gridX;
-
-            addMouseMotionListener(createMouseMotionListener());
+            m_frameTimer = new Timer(FRAME_DELAY, new ActionListener() {
+                @Override
+                public void actionPerformed(final ActionEvent e) {
+                    repaintSprayedRegion();
+                }
+            });
+            m_frameTimer.setRepeats(false);
+        }
 
-            loadPointList(cp.getPoints());
+        @Override
+        public void setBounds(final int x, final int y, final int width, final int height) {
+            super.setBounds(x, y, width, height);
+            m_renderer.setSize(width, height);
         }
 
         @Override
@@ -611,122 +1027,321 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
 
             super.paintComponent(g);
 
-            // use anti-aliasing
             final Graphics2D g2d = (Graphics2D) g;
-            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-            // use white as background color
-            g2d.setColor(Color.white);
-            g2d.fillRect(0, 0, getWidth(), getHeight());
-            g2d.setColor(Color.black);
+            // on screen the static layer is cached, when painting into an
+            // image (e.g. for the image output) it is drawn directly to avoid
+            // a second raster of the full image size
+            if (isShowing()) {
+                if (m_background == null || m_background.getWidth() != getWidth()
+                        || m_background.getHeight() != getHeight()) {
+                    m_background = getGraphicsConfiguration().createCompatibleImage(getWidth(), getHeight());
+                    final Graphics2D bg = m_background.createGraphics();
+                    m_renderer.paintBackground(bg);
+                    bg.dispose();
+                }
+                g2d.drawImage(m_background, 0, 0, null);
 
-            // get default stroke and use a bigger stroke for the axis
-            final Stroke defaultStroke = g2d.getStroke();
-            final Stroke axisStroke = new BasicStroke(3f);
-            g2d.setStroke(axisStroke);
+                // while zoomed in, points must not cover the axis labels
+                final boolean zoomed = m_renderer.isZoomed();
+                final Shape clip = g2d.getClip();
+                if (zoomed) {
+                    g2d.clip(m_renderer.getPlotArea());
+                }
 
-            // get x,y coordinates of the origin origin
-            final int[] origin = transformCoordinateToScreen(0, 0);
+                if (m_preview != null) {
+                    final Composite composite = g2d.getComposite();
+                    g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, PREVIEW_ALPHA));
+                    m_renderer.paintPoints(g2d, m_preview);
+                    g2d.setComposite(composite);
+                }
 
-            // draw y axis
-            g2d.drawLine(origin[0], OFFSET, origin[0], getHeight() - OFFSET);
-            // draw x axis
-            g2d.drawLine(OFFSET, origin[1], getWidth() - OFFSET, origin[1]);
+                if (m_pointLayer == null || m_pointLayer.getWidth() != getWidth()
+                        || m_pointLayer.getHeight() != getHeight()) {
+                    m_pointLayer = getGraphicsConfiguration().createCompatibleImage(getWidth(), getHeight(),
+                            Transparency.TRANSLUCENT);
+                    final Graphics2D pg = m_pointLayer.createGraphics();
+                    if (zoomed) {
+                        // only the points inside the viewport are drawn
+                        final int[] visible = queryVisiblePoints();
+                        m_renderer.paintPoints(pg, m_points, visible);
+                        m_visiblePoints = visible.length;
+                    } else {
+                        m_renderer.paintPoints(pg, m_points);
+                        m_visiblePoints = m_points.size();
+                    }
+                    pg.dispose();
+                }
+                g2d.drawImage(m_pointLayer, 0, 0, null);
+                g2d.setClip(clip);
 
-            // x axis left arrow
-            if (m_minX != 0) {
-                g2d.drawLine(OFFSET, origin[1], OFFSET + 5, origin[1] - 5);
-                g2d.drawLine(OFFSET, origin[1], OFFSET + 5, origin[1] + 5);
+                if (zoomed) {
+                    paintMinimap(g2d);
+                }
+            } else {
+                m_renderer.paint(g2d, m_points);
             }
+        }
 
-            // x axis right arrow
-            if (m_maxX != 0) {
-                g2d.drawLine(getWidth() - OFFSET, origin[1], getWidth() - (OFFSET + 5), origin[1] - 5);
-                g2d.drawLine(getWidth() - OFFSET, origin[1], getWidth() - (OFFSET + 5), origin[1] + 5);
+        /**
+         * @return a graphics object for the point layer using anti-aliasing
+         */
+        private Graphics2D createPointLayerGraphics() {
+            final Graphics2D pg = m_pointLayer.createGraphics();
+            pg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            return pg;
+        }
+
+        /**
+         * @param x
+         *            x coordinate of a point on the screen
+         * @param y
+         *            y coordinate of a point on the screen
+         * @return the screen area covered by a point at the given position (including anti-aliasing)
+         */
+        private static Rectangle getPointBounds(final int x, final int y) {
+            return new Rectangle(x - POINT_SIZE / 2 - 1, y - POINT_SIZE / 2 - 1, POINT_SIZE + 2, POINT_SIZE + 2);
+        }
+
+        /**
+         * @param x
+         *            x coordinate of a point on the screen
+         * @param y
+         *            y coordinate of a point on the screen
+         * @return true if a point at the given position is drawn, i.e. the panel isn't zoomed in or the point overlaps
+         *         the plot area
+         */
+        private boolean isVisible(final int x, final int y) {
+            if (!m_renderer.isZoomed()) {
+                return true;
             }
+            final int extent = POINT_SIZE / 2 + 1;
+            return x >= OFFSET - extent && x <= getWidth() - OFFSET + extent && y >= OFFSET - extent
+                    && y <= getHeight() - OFFSET + extent;
+        }
 
-            // y axis bottom arrow
-            if (m_minY != 0) {
-                g2d.drawLine(origin[0], getHeight() - OFFSET, origin[0] - 5, getHeight() - (OFFSET + 5));
-                g2d.drawLine(origin[0], getHeight() - OFFSET, origin[0] + 5, getHeight() - (OFFSET + 5));
+        /**
+         * @return the indices of the points overlapping the plot area, looked up in the point index
+         */
+        private int[] queryVisiblePoints() {
+            // points up to one radius outside of the plot area still overlap it
+            final int extent = POINT_SIZE / 2 + 1;
+            final double[] topLeft = transformScreenToCoordinate(OFFSET - extent, OFFSET - extent);
+            final double[] bottomRight = transformScreenToCoordinate(getWidth() - OFFSET + extent,
+                    getHeight() - OFFSET + extent);
+            return m_index.query(m_points, topLeft[0], bottomRight[0], bottomRight[1], topLeft[1]);
+        }
+
+        /**
+         * Draws a newly added point into the point layer and repaints only the area it covers.
+         *
+         * @param index
+         *            the index of the new point in the point store
+         */
+        private void repaintAddedPoint(final int index) {
+            final int[] xy = transformCoordinateToScreen(m_points.getX(index), m_points.getY(index));
+            if (!isVisible(xy[0], xy[1])) {
+                return;
             }
+            m_visiblePoints++;
 
-            // y axis top arrow
-            if (m_maxY != 0) {
-                g2d.drawLine(origin[0], OFFSET, origin[0] - 5, OFFSET + 5);
-                g2d.drawLine(origin[0], OFFSET, origin[0] + 5, OFFSET + 5);
+            // a density image has to be computed from all visible points
+            if (m_renderer.isDensityMode(m_visiblePoints)) {
+                invalidatePointLayer();
+                repaint();
+                return;
             }
 
-            // draw grid
-            g2d.setStroke(defaultStroke);
+            if (m_pointLayer != null) {
+                final Graphics2D pg = createPointLayerGraphics();
+                m_renderer.paintPoint(pg, m_points, index);
+                pg.dispose();
+            }
+            repaint(getPointBounds(xy[0], xy[1]));
+        }
 
-            // calculate screen difference from one grid line to another grid
-            // line
-            final int[] gridPoint = transformCoordinateToScreen(m_gridX, m_gridY);
-            final int xDifference = Math.abs(gridPoint[0] - origin[0]);
-            final int yDifference = Math.abs(gridPoint[1] - origin[1]);
+        /**
+         * Erases a removed point from the point layer, redraws the points overlapping the erased area and repaints
+         * only that area.
+         *
+         * @param x
+         *            x coordinate of the removed point on the screen
+         * @param y
+         *            y coordinate of the removed point on the screen
+         */
+        private void repaintRemovedPoint(final int x, final int y) {
+            if (!isVisible(x, y)) {
+                return;
+            }
 
-            // draw x grid lines on the negative side and grid numbering
-            int count = 0;
-            for (int i = origin[0]; i > OFFSET * 2; i -= xDifference) {
-                g2d.drawLine(i, OFFSET, i, getHeight() - OFFSET);
+            // the point layer was a density image before the removal
+            final boolean density = m_renderer.isDensityMode(m_visiblePoints);
+            m_visiblePoints--;
+            if (density) {
+                invalidatePointLayer();
+                repaint();
+                return;
+            }
 
-                if (count != 0 && count % 2 == 0 && m_gridX > 5) {
-                    g2d.drawString(String.valueOf(((int) m_gridX * count) * -1), i + 2, origin[1] - 5);
+            final Rectangle dirty = getPointBounds(x, y);
+            if (m_pointLayer != null) {
+                final Graphics2D pg = createPointLayerGraphics();
+                pg.setComposite(AlphaComposite.Clear);
+                pg.fill(dirty);
+                pg.setComposite(AlphaComposite.SrcOver);
+                pg.setClip(dirty);
+
+                // every point whose center is at most one radius away from the
+                // erased area may overlap it
+                final double[] topLeft = transformScreenToCoordinate(dirty.x - POINT_SIZE / 2 - 1,
+                        dirty.y - POINT_SIZE / 2 - 1);
+                final double[] bottomRight = transformScreenToCoordinate(dirty.x + dirty.width + POINT_SIZE / 2 + 1,
+                        dirty.y + dirty.height + POINT_SIZE / 2 + 1);
+                final int[] overlapping = m_index.query(m_points, topLeft[0], bottomRight[0], bottomRight[1],
+                        topLeft[1]);
+                for (final int index : overlapping) {
+                    m_renderer.paintPoint(pg, m_points, index);
                 }
-                ++count;
+                pg.dispose();
             }
+            repaint(dirty);
+        }
 
-            // draw x grid lines on the positive side and grid numbering
-            FontMetrics fm = g2d.getFontMetrics();
-            count = 0;
-            for (int i = origin[0]; i < getWidth() - OFFSET * 2; i += xDifference) {
-                g2d.drawLine(i, OFFSET, i, getHeight() - OFFSET);
+        /**
+         * @param brush
+         *            the brush which sprays points while the mouse is dragged or null to disable it
+         */
+        void setBrush(final Brush brush) {
+            m_brush = brush;
+        }
 
-                if (count != 0 && count % 2 == 0 && m_gridX > 5) {
-                    g2d.drawString(String.valueOf((int) m_gridX * count),
-                            i - fm.stringWidth(String.valueOf((int) m_gridX * count)) - 2, origin[1] - 5);
-                }
-                ++count;
+        /**
+         * Sprays the points of one mouse event around the given position. The points are inserted as one batch and
+         * drawn into the point layer, the area they cover is repainted with the next frame.
+         *
+         * @param x
+         *            x coordinate of the mouse on the screen
+         * @param y
+         *            y coordinate of the mouse on the screen
+         */
+        void sprayPoints(final int x, final int y) {
+            if (m_brush == null) {
+                return;
             }
 
-            // draw y grid lines on the positive side
-            count = 0;
-            for (int i = origin[1]; i > OFFSET * 2; i -= yDifference) {
-                g2d.drawLine(OFFSET, i, getWidth() - OFFSET, i);
+            final int count = m_brush.getCount();
+            if (m_sprayX.length < count) {
+                m_sprayX = new double[count];
+                m_sprayY = new double[count];
+            }
+            m_brush.spray(x, y, m_sprayX, m_sprayY);
 
-                if (count != 0 && count % 2 == 0 && m_gridX > 5) {
-                    g2d.drawString(String.valueOf((int) m_gridY * count), origin[0] + 4, i + 2 + fm.getHeight());
+            // only points within the coordinate system are added
+            final int first = m_points.size();
+            for (int i = 0; i < count; i++) {
+                if (m_sprayX[i] < OFFSET || m_sprayY[i] < OFFSET || m_sprayX[i] > getWidth() - OFFSET
+                        || m_sprayY[i] > getHeight() - OFFSET) {
+                    continue;
                 }
-                ++count;
+                final double[] xy = transformScreenToCoordinate(m_sprayX[i], m_sprayY[i]);
+                addPoint(xy[0], xy[1], m_brush.getPointClass());
+            }
+            if (m_points.size() == first) {
+                return;
             }
 
-            // draw y grid lines on the negative side
-            count = 0;
-            for (int i = origin[1]; i < getHeight() - OFFSET * 2; i += yDifference) {
-                g2d.drawLine(OFFSET, i, getWidth() - OFFSET, i);
-
-                if (count != 0 && count % 2 == 0 && m_gridX > 5) {
-                    g2d.drawString(String.valueOf(((int) m_gridY * count) * -1), origin[0] + 4, i - 2);
+            // sprayed points lie inside the plot area, so they are all visible
+            m_visiblePoints += m_points.size() - first;
+            if (m_renderer.isDensityMode(m_visiblePoints)) {
+                // a density image has to be computed from all visible points
+                invalidatePointLayer();
+                m_sprayedDensity = true;
+            } else {
+                if (m_pointLayer != null) {
+                    final Graphics2D pg = createPointLayerGraphics();
+                    for (int index = first; index < m_points.size(); index++) {
+                        m_renderer.paintPoint(pg, m_points, index);
+                    }
+                    pg.dispose();
+                }
+                final int extent = m_brush.getRadius() + POINT_SIZE / 2 + 1;
+                final Rectangle sprayed = new Rectangle(x - extent, y - extent, 2 * extent + 1, 2 * extent + 1);
+                if (m_sprayedRegion == null) {
+                    m_sprayedRegion = sprayed;
+                } else {
+                    m_sprayedRegion.add(sprayed);
                 }
-                ++count;
             }
 
-            // add points to coordinate system
-            for (final Point p : m_points) {
-                // calculate the position on the screen from the coordinates
-                final int[] xy = transformCoordinateToScreen(p.getX(), p.getY());
-                // use point color
-                g2d.setColor(p.getColor());
-                g2d.fillOval(xy[0] - 5, xy[1] - 5, 10, 10);
+            if (!m_frameTimer.isRunning()) {
+                m_frameTimer.start();
             }
         }
 
+        /**
+         * Repaints the area covered by the points sprayed since the last frame.
+         */
+        private void repaintSprayedRegion() {
+            if (m_sprayedDensity) {
+                repaint();
+            } else if (m_sprayedRegion != null) {
+                repaint(m_sprayedRegion);
+            }
+            m_sprayedDensity = false;
+            m_sprayedRegion = null;
+            repaintMinimap();
+            updatePreview();
+        }
+
+        /**
+         * Sets the generator whose sampled points are previewed, the points of this panel are its anchors.
+         *
+         * @param generator
+         *            the generator or null if the generator mode is disabled
+         */
+        void setGenerator(final PointGenerator generator) {
+            m_generator = generator;
+            updatePreview();
+        }
+
+        /**
+         * Samples the preview again, necessary after the anchors, the ranges or the generator changed.
+         */
+        private void updatePreview() {
+            if (m_generator == null) {
+                if (m_preview != null) {
+                    m_preview = null;
+                    repaint();
+                }
+                return;
+            }
+            m_preview = m_generator.preview(m_points, m_renderer, PREVIEW_POINTS);
+            repaint();
+        }
+
+        /**
+         * Discards the point layer, it is rendered again on the next repaint.
+         */
+        private void invalidatePointLayer() {
+            m_pointLayer = null;
+        }
+
+        /**
+         * Discards the cached static layer, it is rendered again on the next repaint.
+         */
+        private void invalidateBackground() {
+            m_background = null;
+        }
+
         /**
          * Removes all points which are currently in this coordinate panel.
          */
         private void clearPoints() {
             m_points.clear();
+            m_index.clear();
+            m_visiblePoints = 0;
+            invalidatePointLayer();
+            updatePreview();
             repaint();
         }
 
@@ -747,9 +1362,11 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
             // check if snap to grid is activated
             if (snapToGrid) {
                 double[] xy = transformScreenToCoordinate(x, y);
+                final double gridX = m_renderer.getGridX();
+                final double gridY = m_renderer.getGridY();
 
-                double modX = xy[0] % m_gridX;
-                double modY = xy[1] % m_gridY;
+                double modX = xy[0] % gridX;
+                double modY = xy[1] % gridY;
 
                 // if x is negative, just map it to the positive side
                 if (xy[0] < 0) {
@@ -759,7 +1376,7 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
 
                     // checks on which side of the grid the point should be
                     // drawn
-                    xy[0] = (modX > (m_gridX / 2)) ? xy[0] - modX + m_gridX : xy[0] - modX;
+                    xy[0] = (modX > (gridX / 2)) ? xy[0] - modX + gridX : xy[0] - modX;
 
                     // reverse direction (to match negative side)
                     xy[0] *= -1d;
@@ -767,7 +1384,7 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
                 } else {
                     // checks on which side of the grid the point should be
                     // drawn
-                    xy[0] = (modX > (m_gridX / 2)) ? xy[0] - modX + m_gridX : xy[0] - modX;
+                    xy[0] = (modX > (gridX / 2)) ? xy[0] - modX + gridX : xy[0] - modX;
                 }
 
                 // if y is negative, just map it to the positive side
@@ -777,24 +1394,26 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
 
                     // checks on which side of the grid the point should be
                     // drawn
-                    xy[1] = (modY > (m_gridY / 2)) ? xy[1] - modY + m_gridY : xy[1] - modY;
+                    xy[1] = (modY > (gridY / 2)) ? xy[1] - modY + gridY : xy[1] - modY;
 
                     // reverse direction (to match negative side)
                     xy[1] *= -1d;
                 } else {
                     // checks on which side of the grid the point should be
                     // drawn
-                    xy[1] = (modY > (m_gridY / 2)) ? xy[1] - modY + m_gridY : xy[1] - modY;
+                    xy[1] = (modY > (gridY / 2)) ? xy[1] - modY + gridY : xy[1] - modY;
                 }
 
-                m_points.add(new Point(xy[0], xy[1], pointClass));
+                addPoint(xy[0], xy[1], pointClass);
             } else {
                 final double[] xy = transformScreenToCoordinate(x, y);
-                m_points.add(new Point(xy[0], xy[1], pointClass));
+                addPoint(xy[0], xy[1], pointClass);
             }
 
-            // repaint after adding the point
-            repaint();
+            // draw the new point and repaint the area it covers
+            repaintAddedPoint(m_points.size() - 1);
+            repaintMinimap();
+            updatePreview();
         }
 
         /**
@@ -806,38 +1425,72 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
          *            , y coordinate on the screen
          */
         private void removePoint(final int x, final int y) {
-            // transform screen coordinates to real coordinates
-            final double[] xy = transformScreenToCoordinate(x, y);
-
             // find the nearest neighbor
-            double minDistance = Double.MAX_VALUE;
-            Point nearestPoint = null;
-            for (final Point p : m_points) {
-
-                // if the distance on the screen is too big, continue;
-                final int[] pointToScreen = transformCoordinateToScreen(p.getX(), p.getY());
-                if (Math.abs(x - pointToScreen[0]) > 5 || Math.abs(y - pointToScreen[1]) > 5) {
-                    continue;
-                }
-
-                // get the nearest point
-                final double distance = Math.sqrt(Math.pow(xy[0] - p.getX(), 2) + Math.pow(xy[1] - p.getY(), 2));
-
-                if (distance < minDistance) {
-                    nearestPoint = p;
-                    minDistance = distance;
-                }
-            }
+            final int nearestPoint = findNearestPoint(x, y);
 
             // if there is a point nearby, delete it
-            if (nearestPoint == null) {
+            if (nearestPoint < 0) {
                 return;
-            } else {
-                m_points.remove(nearestPoint);
             }
+            final int[] xy = transformCoordinateToScreen(m_points.getX(nearestPoint), m_points.getY(nearestPoint));
+            removePoint(nearestPoint);
 
-            // repaint coordinate panel after removing a point
-            repaint();
+            // repaint the area of the coordinate panel the point covered
+            repaintRemovedPoint(xy[0], xy[1]);
+            repaintMinimap();
+            updatePreview();
+        }
+
+        /**
+         * Adds a point to the point store and the spatial index.
+         *
+         * @param x
+         *            x coordinate in the coordinate panel
+         * @param y
+         *            y coordinate in the coordinate panel
+         * @param pointClass
+         *            the class of the point (1-54)
+         */
+        private void addPoint(final double x, final double y, final int pointClass) {
+            m_points.add(x, y, pointClass);
+            m_index.add(m_points.size() - 1, x, y);
+        }
+
+        /**
+         * Removes a point from the point store and the spatial index.
+         *
+         * @param index
+         *            the index of the point in the point store
+         */
+        private void removePoint(final int index) {
+            m_index.remove(index, m_points.getX(index), m_points.getY(index));
+
+            // the following points move one index down, so the click order
+            // and with it the row keys stay the same
+            m_index.shift(index);
+            m_points.remove(index);
+        }
+
+        /**
+         * Searches the point nearest to the given screen coordinates, only points which are at most
+         * {@link #PICK_RADIUS} pixels away are considered.
+         *
+         * @param x
+         *            , x coordinate on the screen
+         * @param y
+         *            , y coordinate on the screen
+         * @return the index of the nearest point or -1 if there is no point nearby
+         */
+        private int findNearestPoint(final int x, final int y) {
+            return m_renderer.findNearestPoint(m_points, m_index, x, y, PICK_RADIUS);
+        }
+
+        /**
+         * Re-indexes all points, necessary after the range of an axis changed.
+         */
+        private void rebuildIndex() {
+            m_index.rebuild(m_renderer.getMinX(), m_renderer.getMaxX(), m_renderer.getMinY(), m_renderer.getMaxY(),
+                    m_points);
         }
 
         /**
@@ -850,19 +1503,7 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
          * @return A double[] array containing the x,y values on the coordinate panel
          */
         private double[] transformScreenToCoordinate(final double x, final double y) {
-
-            double reversedY = getHeight() - y;
-
-            final double minScreenY = OFFSET;
-            final double maxScreenY = getHeight() - OFFSET;
-            final double minScreenX = OFFSET;
-            final double maxScreenX = getWidth() - OFFSET;
-
-            final double xCoordinate = (m_maxX - m_minX) * ((x - minScreenX) / (maxScreenX - minScreenX)) + m_minX;
-            final double yCoordinate = (m_maxY - m_minY) * ((reversedY - minScreenY) / (maxScreenY - minScreenY))
-                    + m_minY;
-
-            return new double[] {xCoordinate, yCoordinate};
+            return m_renderer.transformScreenToCoordinate(x, y);
         }
 
         /**
@@ -875,20 +1516,12 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
          * @return A double[] array containing the x,y values on the screen
          */
         private int[] transformCoordinateToScreen(final double x, final double y) {
-
-            final double minScreenY = OFFSET;
-            final double maxScreenY = getHeight() - OFFSET;
-            final double minScreenX = OFFSET;
-            final double maxScreenX = getWidth() - OFFSET;
-
-            final double xCoordinate = (maxScreenX - minScreenX) * ((x - m_minX) / (m_maxX - m_minX)) + minScreenX;
-            final double yCoordinate = (maxScreenY - minScreenY) * ((y - m_minY) / (m_maxY - m_minY)) + minScreenY;
-
-            return new int[] {(int) xCoordinate, getHeight() - (int) yCoordinate};
+            return m_renderer.transformCoordinateToScreen(x, y);
         }
 
         /**
          * @return Simple MouseMotionListener which sets the tool tip to the x,y coordinates the mouse is hovering over
+         *         and sprays points with the brush while the mouse is dragged
          */
         private MouseMotionListener createMouseMotionListener() {
             final MouseMotionListener mml = new MouseMotionListener() {
@@ -901,36 +1534,24 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
                         setToolTipText(null);
                     } else {
                         final double[] xy = transformScreenToCoordinate(e.getX(), e.getY());
-
-                        Point nearestPoint = null;
-                        double minDist = Double.MAX_VALUE;
-                        for (final Point p : m_points) {
-                            final double coordDistance = Math.sqrt(Math.pow(xy[0] - p.getX(), 2)
-                                    + Math.pow(xy[1] - p.getY(), 2));
-
-                            final int[] screenCord = transformCoordinateToScreen(p.getX(), p.getY());
-                            if (Math.abs(e.getX() - screenCord[0]) > 5 || Math.abs(e.getY() - screenCord[1]) > 5) {
-                                continue;
-                            }
-
-                            if (coordDistance < minDist) {
-                                nearestPoint = p;
-                                minDist = coordDistance;
-                            }
-                        }
+                        final int nearestPoint = findNearestPoint(e.getX(), e.getY());
 
                         DecimalFormat df = new DecimalFormat("#.##");
-                        if (nearestPoint == null) {
+                        if (nearestPoint < 0) {
                             setToolTipText("x = " + df.format(xy[0]) + " y = " + df.format(xy[1]));
                         } else {
-                            setToolTipText("Point: x = " + df.format(nearestPoint.getX()) + " y = "
-                                    + df.format(nearestPoint.getY()) + " Class = " + nearestPoint.getPointClass());
+                            setToolTipText("Point: x = " + df.format(m_points.getX(nearestPoint)) + " y = "
+                                    + df.format(m_points.getY(nearestPoint)) + " Class = "
+                                    + m_points.getPointClass(nearestPoint));
                         }
                     }
                 }
 
                 @Override
                 public void mouseDragged(final MouseEvent e) {
+                    if (m_brush != null && !m_panning && SwingUtilities.isLeftMouseButton(e)) {
+                        sprayPoints(e.getX(), e.getY());
+                    }
                 }
             };
 
@@ -938,27 +1559,229 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
         }
 
         /**
-         * Saves the given List of Points, only if they're not already added.
+         * @param e
+         *            a mouse event
+         * @return true if the mouse event starts dragging the viewport, i.e. the middle mouse button or the left mouse
+         *         button with shift held down was pressed
+         */
+        static boolean isPanTrigger(final MouseEvent e) {
+            return SwingUtilities.isMiddleMouseButton(e) || (SwingUtilities.isLeftMouseButton(e) && e.isShiftDown());
+        }
+
+        /**
+         * @return MouseAdapter which zooms with the mouse wheel and moves the viewport while the middle mouse button
+         *         (or the left mouse button with shift) is dragged
+         */
+        private MouseAdapter createViewportListener() {
+            return new MouseAdapter() {
+
+                @Override
+                public void mouseWheelMoved(final MouseWheelEvent e) {
+                    zoom(e.getX(), e.getY(), Math.pow(ZOOM_STEP, e.getPreciseWheelRotation()));
+                }
+
+                @Override
+                public void mousePressed(final MouseEvent e) {
+                    m_panning = isPanTrigger(e);
+                    m_panX = e.getX();
+                    m_panY = e.getY();
+                }
+
+                @Override
+                public void mouseDragged(final MouseEvent e) {
+                    if (m_panning) {
+                        pan(e.getX() - m_panX, e.getY() - m_panY);
+                        m_panX = e.getX();
+                        m_panY = e.getY();
+                    }
+                }
+
+                @Override
+                public void mouseReleased(final MouseEvent e) {
+                    m_panning = false;
+                }
+            };
+        }
+
+        /**
+         * Zooms in or out, the coordinates at the given screen position stay in place. The panel can't be zoomed out
+         * beyond the range of the axes.
+         *
+         * @param x
+         *            x coordinate on the screen
+         * @param y
+         *            y coordinate on the screen
+         * @param factor
+         *            the factor the visible range is multiplied with, smaller than 1 to zoom in
+         */
+        void zoom(final int x, final int y, final double factor) {
+            final double rangeX = m_renderer.getMaxX() - m_renderer.getMinX();
+            final double rangeY = m_renderer.getMaxY() - m_renderer.getMinY();
+            if (rangeX <= 0 || rangeY <= 0) {
+                return;
+            }
+
+            final double viewMinX = m_renderer.getViewMinX();
+            final double viewMinY = m_renderer.getViewMinY();
+            final double viewWidth = m_renderer.getViewMaxX() - viewMinX;
+            final double viewHeight = m_renderer.getViewMaxY() - viewMinY;
+            final double width = Math.max(rangeX / MAX_ZOOM, Math.min(rangeX, viewWidth * factor));
+            final double height = Math.max(rangeY / MAX_ZOOM, Math.min(rangeY, viewHeight * factor));
+
+            final double[] xy = transformScreenToCoordinate(x, y);
+            final double minX = xy[0] - (xy[0] - viewMinX) * width / viewWidth;
+            final double minY = xy[1] - (xy[1] - viewMinY) * height / viewHeight;
+            setViewport(minX, minY, width, height);
+        }
+
+        /**
+         * Moves the viewport by the given screen distance, the content of the panel follows the mouse.
+         *
+         * @param dx
+         *            distance along the x axis on the screen
+         * @param dy
+         *            distance along the y axis on the screen
+         */
+        void pan(final int dx, final int dy) {
+            final double viewMinX = m_renderer.getViewMinX();
+            final double viewMinY = m_renderer.getViewMinY();
+            final double viewWidth = m_renderer.getViewMaxX() - viewMinX;
+            final double viewHeight = m_renderer.getViewMaxY() - viewMinY;
+
+            // the y axis points upwards, the screen downwards
+            setViewport(viewMinX - dx * viewWidth / (getWidth() - 2 * OFFSET),
+                    viewMinY + dy * viewHeight / (getHeight() - 2 * OFFSET), viewWidth, viewHeight);
+        }
+
+        /**
+         * Sets the visible part of the range, moved inside the range of the axes if necessary.
+         *
+         * @param minX
+         *            the minimum visible x value
+         * @param minY
+         *            the minimum visible y value
+         * @param width
+         *            the visible range along the x axis
+         * @param height
+         *            the visible range along the y axis
+         */
+        private void setViewport(final double minX, final double minY, final double width, final double height) {
+            final double x = Math.max(m_renderer.getMinX(), Math.min(minX, m_renderer.getMaxX() - width));
+            final double y = Math.max(m_renderer.getMinY(), Math.min(minY, m_renderer.getMaxY() - height));
+            if (x == m_renderer.getViewMinX() && y == m_renderer.getViewMinY()
+                    && x + width == m_renderer.getViewMaxX() && y + height == m_renderer.getViewMaxY()) {
+                return;
+            }
+
+            // zooming out completely shows exactly the range of the axes
+            if (width >= m_renderer.getMaxX() - m_renderer.getMinX()
+                    && height >= m_renderer.getMaxY() - m_renderer.getMinY()) {
+                m_renderer.resetViewport();
+            } else {
+                m_renderer.setViewport(x, x + width, y, y + height);
+            }
+            invalidateBackground();
+            invalidatePointLayer();
+            repaint();
+        }
+
+        /**
+         * Paints an overview of the whole range into the lower right corner of the plot area. Each cell of the point
+         * index is shaded by the number of points in it, the viewport is outlined.
+         *
+         * @param g2d
+         *            the graphics to paint on
+         */
+        private void paintMinimap(final Graphics2D g2d) {
+            final int cellsX = m_index.getCellsX();
+            final int cellsY = m_index.getCellsY();
+            if (m_minimap == null) {
+                m_minimap = new BufferedImage(cellsX, cellsY, BufferedImage.TYPE_INT_ARGB);
+            }
+
+            int maxCount = 0;
+            for (int cy = 0; cy < cellsY; cy++) {
+                for (int cx = 0; cx < cellsX; cx++) {
+                    maxCount = Math.max(maxCount, m_index.count(cx, cy));
+                }
+            }
+            final int[] argb = new int[cellsX * cellsY];
+            final double logMax = Math.log1p(maxCount);
+            for (int cy = 0; cy < cellsY; cy++) {
+                for (int cx = 0; cx < cellsX; cx++) {
+                    final int count = m_index.count(cx, cy);
+                    // the y axis points upwards, image rows downwards
+                    final int gray = count == 0 ? 255 : 200 - (int) (200 * Math.log1p(count) / logMax);
+                    argb[(cellsY - 1 - cy) * cellsX + cx] = 0xFF000000 | (gray << 16) | (gray << 8) | gray;
+                }
+            }
+            m_minimap.setRGB(0, 0, cellsX, cellsY, argb, 0, cellsX);
+
+            final Rectangle map = getMinimapBounds();
+            g2d.drawImage(m_minimap, map.x, map.y, map.width, map.height, null);
+
+            final double scaleX = map.width / (m_renderer.getMaxX() - m_renderer.getMinX());
+            final double scaleY = map.height / (m_renderer.getMaxY() - m_renderer.getMinY());
+            final int viewX = map.x + (int) ((m_renderer.getViewMinX() - m_renderer.getMinX()) * scaleX);
+            final int viewY = map.y + (int) ((m_renderer.getMaxY() - m_renderer.getViewMaxY()) * scaleY);
+            final int viewWidth = (int) Math.ceil((m_renderer.getViewMaxX() - m_renderer.getViewMinX()) * scaleX);
+            final int viewHeight = (int) Math.ceil((m_renderer.getViewMaxY() - m_renderer.getViewMinY()) * scaleY);
+
+            g2d.setColor(Color.red);
+            g2d.drawRect(viewX, viewY, Math.max(1, viewWidth), Math.max(1, viewHeight));
+            g2d.setColor(Color.black);
+            g2d.drawRect(map.x, map.y, map.width, map.height);
+        }
+
+        /**
+         * @return the screen area of the overview shown while zoomed in
+         */
+        private Rectangle getMinimapBounds() {
+            return new Rectangle(getWidth() - OFFSET - MINIMAP_MARGIN - MINIMAP_SIZE,
+                    getHeight() - OFFSET - MINIMAP_MARGIN - MINIMAP_SIZE, MINIMAP_SIZE, MINIMAP_SIZE);
+        }
+
+        /**
+         * Repaints the overview after points were added or removed, necessary as only the area of the changed points
+         * is repainted otherwise.
+         */
+        private void repaintMinimap() {
+            if (m_renderer.isZoomed()) {
+                repaint(getMinimapBounds());
+            }
+        }
+
+        /**
+         * Saves the given points, only if they're not already added. Duplicates are looked up in a hash grid, so
+         * loading takes linear time.
          *
          * @param points
-         *            , a List of points
+         *            , the points to add
          */
-        private void loadPointList(final List<Point> points) {
-            for (Point point : points) {
-                if (!this.m_points.contains(point)) {
-                    this.m_points.add(point);
+        private void loadPointList(final PointStore points) {
+            m_points.ensureCapacity(m_points.size() + points.size());
+            final PointDeduplicator duplicates = new PointDeduplicator(m_points, m_points.size() + points.size());
+            for (int i = 0; i < points.size(); i++) {
+                double x = points.getX(i);
+                double y = points.getY(i);
+                int pointClass = points.getPointClass(i);
+                if (duplicates.indexOf(x, y, pointClass) < 0) {
+                    addPoint(x, y, pointClass);
+                    duplicates.update();
                 }
             }
 
             // repaint after adding the points
+            invalidatePointLayer();
+            updatePreview();
             repaint();
         }
 
         /**
-         * @return all points which are currently in the coordinate panel.
+         * @return an immutable snapshot of the points of this panel, taken in constant time
          */
-        private List<Point> getPoints() {
-            return m_points;
+        PointStore snapshotPoints() {
+            return m_points.snapshot();
         }
 
         /**
@@ -966,7 +1789,14 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
          * @param minY the new minimum y value.
          */
         private void setMinY(final double minY) {
-            this.m_minY = minY;
+            if (m_renderer.getMinY() == minY) {
+                return;
+            }
+            m_renderer.setMinY(minY);
+            rebuildIndex();
+            invalidateBackground();
+            invalidatePointLayer();
+            updatePreview();
             repaint();
         }
 
@@ -975,7 +1805,14 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
          * @param maxY the new maximum y value.
          */
         private void setMaxY(final double maxY) {
-            this.m_maxY = maxY;
+            if (m_renderer.getMaxY() == maxY) {
+                return;
+            }
+            m_renderer.setMaxY(maxY);
+            rebuildIndex();
+            invalidateBackground();
+            invalidatePointLayer();
+            updatePreview();
             repaint();
         }
 
@@ -984,7 +1821,14 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
          * @param minX the new minimum x value.
          */
         private void setMinX(final double minX) {
-            this.m_minX = minX;
+            if (m_renderer.getMinX() == minX) {
+                return;
+            }
+            m_renderer.setMinX(minX);
+            rebuildIndex();
+            invalidateBackground();
+            invalidatePointLayer();
+            updatePreview();
             repaint();
         }
 
@@ -993,7 +1837,27 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
          * @param maxX the new maximum x value.
          */
         private void setMaxX(final double maxX) {
-            this.m_maxX = maxX;
+            if (m_renderer.getMaxX() == maxX) {
+                return;
+            }
+            m_renderer.setMaxX(maxX);
+            rebuildIndex();
+            invalidateBackground();
+            invalidatePointLayer();
+            updatePreview();
+            repaint();
+        }
+
+        /**
+         * Sets the number of points above which a density image is drawn instead of the single points.
+         * @param densityThreshold the new density threshold.
+         */
+        void setDensityThreshold(final int densityThreshold) {
+            if (m_renderer.getDensityThreshold() == densityThreshold) {
+                return;
+            }
+            m_renderer.setDensityThreshold(densityThreshold);
+            invalidatePointLayer();
             repaint();
         }
 
@@ -1002,7 +1866,11 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
          * @param gridY the new grid y value.
          */
         private void setGridY(final double gridY) {
-            this.m_gridY = gridY;
+            if (m_renderer.getGridY() == gridY) {
+                return;
+            }
+            m_renderer.setGridY(gridY);
+            invalidateBackground();
             repaint();
         }
 
@@ -1011,119 +1879,12 @@ public final class CoordinatePanelNodeDialogPane extends NodeDialogPane {
          * @param gridX the new grid x value.
          */
         private void setGridX(final double gridX) {
-            this.m_gridX = gridX;
-            repaint();
-        }
-    }
-
-    /**
-     * Representation of a Point, holds the x,y coordinates and a class value.
-     *
-     * @author Daniel Seebacher
-     *
-     */
-    private static class Point {
-        private final double m_x;
-        private final double m_y;
-
-        private final int m_pointClass;
-
-        public Point(final double x, final double y, final int pointClass) {
-            this.m_x = x;
-            this.m_y = y;
-            this.m_pointClass = pointClass;
-        }
-
-        public double getX() {
-            return m_x;
-        }
-
-        public double getY() {
-            return m_y;
-        }
-
-        public int getPointClass() {
-            return m_pointClass;
-        }
-
-        @Override
-        public String toString() {
-            return m_x + " " + m_y + " " + m_pointClass;
-        }
-
-        @Override
-        public boolean equals(final Object obj) {
-            if (!(obj instanceof Point)) {
-                return false;
-            }
-
-            final Point otherPoint = (Point) obj;
-
-            // No exact matching, a little error is allowed (rounding mistakes
-            // by double)
-            double epsilon = 0.001;
-            double distance = euclideanDistance(otherPoint.getX(), this.getX(), otherPoint.getY(), this.getY());
-
-            if (distance > epsilon || otherPoint.getPointClass() != this.getPointClass()) {
-                return false;
+            if (m_renderer.getGridX() == gridX) {
+                return;
             }
-            return true;
-        }
-
-        private double euclideanDistance(final double x2, final double x1, final double y2, final double y1) {
-
-            double diffX = Math.pow(x2 - x1, 2);
-            double diffY = Math.pow(y2 - y1, 2);
-
-            return Math.sqrt(diffX + diffY);
-        }
-
-        @Override
-        public int hashCode() {
-            final int firstPrime = 31;
-            final int secondPrime = 17;
-            final int thirdPrime = 31;
-            return (int) (m_x * firstPrime + m_y * secondPrime + m_pointClass * thirdPrime);
-        }
-
-        /**
-         * @return The color assigned to this point, determined by its class
-         */
-        public Color getColor() {
-            return hex2Rgb(excelColors(m_pointClass));
-        }
-
-        /**
-         * Assigns each class a different color, using the excel color set see:
-         * (http://dmcritchie.mvps.org/excel/colors.htm | last accessed 18.02.2013).
-         *
-         * @param pointClass
-         *            the class of a point
-         * @return
-         */
-        private String excelColors(final int pointClass) {
-            final String[] excelHexColors = {"#FF0000", "#00FF00", "#0000FF", "#FFFF00", "#FF00FF", "#00FFFF",
-                    "#800000", "#008000", "#000080", "#808000", "#800080", "#008080", "#C0C0C0", "#808080", "#9999FF",
-                    "#993366", "#FFFFCC", "#CCFFFF", "#660066", "#FF8080", "#0066CC", "#CCCCFF", "#000080", "#FF00FF",
-                    "#FFFF00", "#00FFFF", "#800080", "#800000", "#008080", "#0000FF", "#00CCFF", "#CCFFFF", "#CCFFCC",
-                    "#FFFF99", "#99CCFF", "#FF99CC", "#CC99FF", "#FFCC99", "#3366FF", "#33CCCC", "#99CC00", "#FFCC00",
-                    "#FF9900", "#FF6600", "#666699", "#969696", "#003366", "#339966", "#003300", "#333300", "#993300",
-                    "#993366", "#333399", "#333333" };
-            return excelHexColors[pointClass - 1];
-        }
-
-        /**
-         * Turns a hex representation of an RGB color into a color.
-         *
-         * @param colorStr
-         *            a hex representation of a color
-         * @return A Color
-         */
-        private Color hex2Rgb(final String colorStr) {
-            return new Color(Integer.valueOf(colorStr.substring(1, 3), 16),
-                    Integer.valueOf(colorStr.substring(3, 5), 16),
-                    Integer.valueOf(colorStr.substring(5, 7), 16));
+            m_renderer.setGridX(gridX);
+            invalidateBackground();
+            repaint();
         }
     }
-
 }
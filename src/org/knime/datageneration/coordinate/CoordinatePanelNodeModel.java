@@ -47,13 +47,17 @@
  */
 package org.knime.datageneration.coordinate;
 
-import java.awt.Graphics2D;
-import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
 
-import javax.imageio.ImageIO;
+import org.knime.base.data.xml.SvgCell;
+import org.knime.base.data.xml.SvgImageContent;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataColumnSpec;
@@ -67,7 +71,6 @@ import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.image.png.PNGImageCell;
 import org.knime.core.data.image.png.PNGImageContent;
-import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -77,7 +80,18 @@ import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeModel;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
-import org.knime.datageneration.coordinate.CoordinatePanelNodeDialogPane.CoordinatePanel;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.streamable.BufferedDataTableRowOutput;
+import org.knime.core.node.streamable.DataTableRowInput;
+import org.knime.core.node.streamable.InputPortRole;
+import org.knime.core.node.streamable.OutputPortRole;
+import org.knime.core.node.streamable.PartitionInfo;
+import org.knime.core.node.streamable.PortInput;
+import org.knime.core.node.streamable.PortOutput;
+import org.knime.core.node.streamable.RowInput;
+import org.knime.core.node.streamable.RowOutput;
+import org.knime.core.node.streamable.StreamableOperator;
 
 
 /**
@@ -92,11 +106,20 @@ public class CoordinatePanelNodeModel extends NodeModel {
 
     private CoordinatePanelNodeConfiguration m_configuration;
 
+    // the last created image and the content hash of the configuration it was
+    // created from, reused as long as the configuration doesn't change
+    private String m_imageHash;
+    private byte[] m_imageBytes;
+
+    // the timings and counters of the running execution
+    private ExecutionStatistics m_statistics;
+
     /**
-     * Constructor for the node model. No input, one output
+     * Constructor for the node model. One optional point table input, two outputs
      */
     protected CoordinatePanelNodeModel() {
-        super(0, 2);
+        super(new PortType[] {BufferedDataTable.TYPE_OPTIONAL},
+                new PortType[] {BufferedDataTable.TYPE, BufferedDataTable.TYPE});
     }
 
     private DataTableSpec[] getDataTableSpec() {
@@ -108,7 +131,9 @@ public class CoordinatePanelNodeModel extends NodeModel {
         dataSpec[2] = new DataColumnSpecCreator("Class", IntCell.TYPE).createSpec();
 
         DataColumnSpec[] imageSpec = new DataColumnSpec[1];
-        imageSpec[0] = new DataColumnSpecCreator("Image", DataType.getType(PNGImageCell.class)).createSpec();
+        DataType imageType = m_configuration.isSvgImage() ? DataType.getType(SvgCell.class)
+                : DataType.getType(PNGImageCell.class);
+        imageSpec[0] = new DataColumnSpecCreator("Image", imageType).createSpec();
 
         return new DataTableSpec[] {new DataTableSpec(dataSpec), new DataTableSpec(imageSpec) };
     }
@@ -120,84 +145,350 @@ public class CoordinatePanelNodeModel extends NodeModel {
     protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
             throws Exception {
 
+        m_configuration.decodePoints();
+        m_statistics = new ExecutionStatistics("execute");
+        ExecutionStatistics.Phase total = m_statistics.start("total");
+        PointStore inputPoints = null;
+        if (inData[0] != null) {
+            inputPoints = readInputPoints(new DataTableRowInput(inData[0]), inData[0].size(), exec);
+        }
+        PointStore points = getOutputPoints(inputPoints, exec);
+
         DataTableSpec dataOutputSpec = getDataTableSpec()[0];
 
         // the execution context will provide us with storage capacity, in this
         // case a data container to which we will add rows sequentially
         // Note, this container can also handle arbitrary big data tables, it
         // will buffer to disc if necessary.
-        BufferedDataContainer dataContainer = exec.createDataContainer(dataOutputSpec);
+        BufferedDataTableRowOutput dataOutput =
+                new BufferedDataTableRowOutput(exec.createDataContainer(dataOutputSpec));
+        pushPoints(points, dataOutput, exec.createSubProgress(0.3));
+        BufferedDataTable dataOutTable = dataOutput.getDataTable();
+
+        DataTableSpec imageOutputSpec = getDataTableSpec()[1];
+        BufferedDataTableRowOutput imageOutput =
+                new BufferedDataTableRowOutput(exec.createDataContainer(imageOutputSpec));
+        pushImage(points, inputPoints, imageOutput, exec.createSubProgress(0.2));
+        BufferedDataTable imageOutTable = imageOutput.getDataTable();
+
+        total.stop();
+        publishStatistics();
+        return new BufferedDataTable[] {dataOutTable, imageOutTable};
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public InputPortRole[] getInputPortRoles() {
+        return new InputPortRole[] {InputPortRole.NONDISTRIBUTED_STREAMABLE};
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OutputPortRole[] getOutputPortRoles() {
+        return new OutputPortRole[] {OutputPortRole.NONDISTRIBUTED, OutputPortRole.NONDISTRIBUTED};
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public StreamableOperator createStreamableOperator(final PartitionInfo partitionInfo,
+            final PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+        return new StreamableOperator() {
+
+            @Override
+            public void runFinal(final PortInput[] inputs, final PortOutput[] outputs, final ExecutionContext exec)
+                    throws Exception {
+                m_configuration.decodePoints();
+                m_statistics = new ExecutionStatistics("execute");
+                ExecutionStatistics.Phase total = m_statistics.start("total");
+                PointStore inputPoints = readInputPoints((RowInput) inputs[0], -1, exec);
+                PointStore points = getOutputPoints(inputPoints, exec);
 
-        double[] pointsX = m_configuration.getPointsX();
-        double[] pointsY = m_configuration.getPointsY();
-        int[] pointsClasses = m_configuration.getPointsClasses();
+                // the rows of the point table are handed downstream as soon
+                // as they are created, the image follows once all points
+                // have been pushed
+                pushPoints(points, (RowOutput) outputs[0], exec.createSubProgress(0.3));
+                pushImage(points, inputPoints, (RowOutput) outputs[1], exec.createSubProgress(0.2));
+                total.stop();
+                publishStatistics();
+            }
+        };
+    }
+
+    /**
+     * Logs the statistics of the execution and, if configured, publishes them as flow variables: the wall and CPU
+     * time of each phase in milliseconds as <code>coordinatePanel.&lt;phase&gt;.wallMs</code> and
+     * <code>coordinatePanel.&lt;phase&gt;.cpuMs</code> and the counters as
+     * <code>coordinatePanel.&lt;counter&gt;</code>.
+     */
+    private void publishStatistics() {
+        m_statistics.log(LOGGER);
+        if (!m_configuration.isPublishStatistics()) {
+            return;
+        }
+        String prefix = ExecutionStatistics.FLOW_VARIABLE_PREFIX;
+        for (Map.Entry<String, Double> time : m_statistics.getWallTimes().entrySet()) {
+            pushFlowVariableDouble(prefix + time.getKey() + ".wallMs", time.getValue());
+        }
+        for (Map.Entry<String, Double> time : m_statistics.getCpuTimes().entrySet()) {
+            pushFlowVariableDouble(prefix + time.getKey() + ".cpuMs", time.getValue());
+        }
+        for (Map.Entry<String, Long> counter : m_statistics.getCounters().entrySet()) {
+            // flow variables are int, larger counters are capped
+            pushFlowVariableInt(prefix + counter.getKey(), (int) Math.min(Integer.MAX_VALUE, counter.getValue()));
+        }
+    }
 
-        if (pointsX == null || pointsY == null || pointsClasses == null) {
-            dataContainer.close();
-            BufferedDataTable out = dataContainer.getTable();
-            return new BufferedDataTable[] {out};
+    /**
+     * Reads the points of the input table in a single pass and closes the input.
+     *
+     * @param input
+     *            the rows of the input table or null if the input isn't connected
+     * @param size
+     *            the number of rows of the input table or -1 if unknown
+     * @param exec
+     *            the execution context for progress and cancellation
+     * @return the points of the input table or null if there is no input or its points aren't used
+     * @throws InvalidSettingsException
+     *             if the selected columns don't match the input table
+     * @throws InterruptedException
+     *             if the input was interrupted while waiting for upstream nodes
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
+     */
+    private PointStore readInputPoints(final RowInput input, final long size, final ExecutionContext exec)
+            throws InvalidSettingsException, InterruptedException, CanceledExecutionException {
+        if (input == null) {
+            return null;
+        }
+        if (!m_configuration.isUseInputPoints()) {
+            input.close();
+            return null;
         }
 
-        // let's add m_count rows to it
-        for (int i = 0; i < pointsX.length; i++) {
-            RowKey key = new RowKey("Row " + i);
-            // the cells of the current row, the types of the cells must match
-            // the column spec (see above)
-            DataCell[] cells = new DataCell[dataOutputSpec.getNumColumns()];
-            cells[0] = new DoubleCell(pointsX[i]);
-            cells[1] = new DoubleCell(pointsY[i]);
-            cells[2] = new IntCell(pointsClasses[i]);
-            DataRow row = new DefaultRow(key, cells);
-            dataContainer.addRowToTable(row);
-
-            // check if the execution monitor was canceled
-            exec.checkCanceled();
-            exec.setProgress(i / (double) pointsX.length, "Adding row " + i);
+        ExecutionStatistics.Phase phase = m_statistics.start("readInput");
+        PointTableReader reader = new PointTableReader(input.getDataTableSpec(), m_configuration);
+        exec.setMessage("Reading input points");
+        PointStore points = reader.read(input, size, exec.createSubProgress(0.2));
+        input.close();
+        phase.stop();
+        m_statistics.set("inputPoints", points.size());
+        m_statistics.set("skippedRows", reader.getSkippedRows());
+        if (reader.getSkippedRows() > 0) {
+            setWarningMessage(reader.getSkippedRows()
+                    + " rows of the input table were skipped because of missing values or classes outside of 1-54");
         }
-        // once we are done, we close the container and return its table
-        dataContainer.close();
-        BufferedDataTable dataOutTable = dataContainer.getTable();
+        return points;
+    }
 
-        DataTableSpec imageOutputSpec = getDataTableSpec()[1];
-        BufferedDataContainer imageContainer = exec.createDataContainer(imageOutputSpec);
+    /**
+     * Returns the points of the output, either the points of the input table followed by the points of the
+     * coordinate panel or, in generator mode, the points sampled from the configured shape with these points as
+     * anchors.
+     *
+     * @param inputPoints
+     *            the points of the input table or null if there are none
+     * @param exec
+     *            the execution context for progress and cancellation
+     * @return the points of the output
+     * @throws InterruptedException
+     *             if the thread was interrupted while sampling
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
+     */
+    private PointStore getOutputPoints(final PointStore inputPoints, final ExecutionContext exec)
+            throws InterruptedException, CanceledExecutionException {
+        PointStore points = m_configuration.getPoints();
+        if (inputPoints != null) {
+            PointStore allPoints = new PointStore(inputPoints.size() + points.size());
+            allPoints.addAll(inputPoints);
+            allPoints.addAll(points);
+            points = allPoints;
+        }
+
+        PointGenerator generator = m_configuration.createGenerator();
+        if (generator == null) {
+            m_statistics.set("outputPoints", points.size());
+            return points;
+        }
+        ExecutionStatistics.Phase phase = m_statistics.start("generate");
+        exec.setMessage("Sampling points");
+        points = generator.generate(points, CoordinatePanelRenderer.create(m_configuration),
+                exec.createSubProgress(0.3));
+        phase.stop();
+        m_statistics.set("outputPoints", points.size());
+        return points;
+    }
+
+    /**
+     * Pushes one row per point to the output and closes it.
+     *
+     * @param points
+     *            the points of the output
+     * @param output
+     *            the output of the point table
+     * @param exec
+     *            the execution monitor for progress and cancellation
+     * @throws InterruptedException
+     *             if the output was interrupted while waiting for downstream nodes
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
+     */
+    private void pushPoints(final PointStore points, final RowOutput output, final ExecutionMonitor exec)
+            throws InterruptedException, CanceledExecutionException {
+        // the rows are built in parallel chunks and pushed in their original
+        // order
+        ExecutionStatistics.Phase phase = m_statistics.start("writeRows");
+        PointRowPipeline.push(points, output, exec);
+
+        // once we are done, we close the output
+        output.close();
+        phase.stop();
+        m_statistics.set("rowsWritten", points.size());
+    }
+
+    /**
+     * Pushes the single row with the image of the coordinate panel to the output and closes it.
+     *
+     * @param points
+     *            the points of the output
+     * @param inputPoints
+     *            the points of the input table or null if there are none
+     * @param output
+     *            the output of the image table
+     * @param exec
+     *            the execution monitor for progress and cancellation
+     * @throws InterruptedException
+     *             if the output was interrupted while waiting for downstream nodes
+     * @throws IOException
+     *             if the SVG image can't be parsed into a cell
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
+     */
+    private void pushImage(final PointStore points, final PointStore inputPoints, final RowOutput output,
+            final ExecutionMonitor exec) throws InterruptedException, IOException, CanceledExecutionException {
         RowKey key = new RowKey("Image");
-        byte[] imageBytes = m_configuration.getImage();
-        if (imageBytes.length <= 0) {
-            imageBytes = createImage();
+        ExecutionStatistics.Phase phase = m_statistics.start("image");
+        byte[] imageBytes = getImage(points, inputPoints, exec);
+        DataCell cell;
+        if (!m_configuration.isSvgImage()) {
+            cell = new PNGImageContent(imageBytes).toImageCell();
+        } else if (imageBytes.length == 0) {
+            cell = DataType.getMissingCell();
+        } else {
+            cell = new SvgImageContent(new ByteArrayInputStream(imageBytes)).toImageCell();
         }
-        DataRow row = new DefaultRow(key, new PNGImageContent(imageBytes).toImageCell());
-        imageContainer.addRowToTable(row);
-        imageContainer.close();
-        BufferedDataTable imageOutTable = imageContainer.getTable();
+        DataRow row = new DefaultRow(key, cell);
+        output.push(row);
+        output.close();
+        phase.stop();
+        m_statistics.set("imageBytes", imageBytes.length);
+    }
 
-        return new BufferedDataTable[] {dataOutTable, imageOutTable};
+    /**
+     * Returns the PNG or SVG image of the current configuration. The image is only created if the configuration or the
+     * input points changed since the last image was created, otherwise the previous image is reused. Images are also
+     * looked up in the {@link RenderCache}, which survives resets and is shared by all nodes.
+     *
+     * @param points
+     *            the points of the output, they are determined by the configuration and the input points
+     * @param inputPoints
+     *            the points of the input table or null if there are none
+     * @param exec
+     *            the execution monitor for progress and cancellation
+     * @return the PNG or SVG image of the coordinate panel
+     * @throws InterruptedException
+     *             if the thread was interrupted while rendering
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
+     */
+    private byte[] getImage(final PointStore points, final PointStore inputPoints, final ExecutionMonitor exec)
+            throws InterruptedException, CanceledExecutionException {
+        String hash = m_configuration.getContentHash(inputPoints);
+        m_statistics.set("peakRasterBytes", 0);
+        if (m_imageBytes == null || !hash.equals(m_imageHash)) {
+            boolean svg = m_configuration.isSvgImage();
+            ExecutionStatistics.Phase phase = m_statistics.start("imageCache");
+            m_imageBytes = RenderCache.get(hash, svg);
+            phase.stop();
+            if (m_imageBytes != null) {
+                LOGGER.debug("Reusing the cached image of the Coordinate Panel");
+            } else {
+                exec.setMessage("Rendering image");
+                m_imageBytes = createImage(points, exec);
+                if (m_imageBytes.length > 0) {
+                    phase = m_statistics.start("imageCache");
+                    try {
+                        RenderCache.put(hash, svg, m_imageBytes);
+                    } catch (IOException e) {
+                        LOGGER.warn("Couldn't cache the image of the Coordinate Panel: " + e.getMessage(), e);
+                    }
+                    phase.stop();
+                }
+            }
+            m_imageHash = hash;
+        } else {
+            LOGGER.debug("Configuration unchanged, reusing the previous image of the Coordinate Panel");
+        }
+        return m_imageBytes;
     }
 
     /**
-     * This method is used if there is currently no image stored in the configuration.
-     * It creates an empty coordinate panel and creates an image of it.
-     * This is necessary because otherwise the PNGImageContent would throw an exception,
-     * because it can't work with an empty byte array.
-     * @return
+     * Renders the coordinate panel described by the configuration without creating any Swing component and encodes
+     * it as PNG. The image is rendered in parallel bands, so even images of the maximum size never exist uncompressed
+     * as a whole.
+     * @param points
+     *            the points of the output
+     * @param exec
+     *            the execution monitor for progress and cancellation
+     * @return the PNG image of the coordinate panel
+     * @throws InterruptedException
+     *             if the thread was interrupted while rendering
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
      */
-    private byte[] createImage() {
-        CoordinatePanel cp = new CoordinatePanel(m_configuration.getMinY(), m_configuration.getMaxY(),
-                m_configuration.getMinX(), m_configuration.getMaxX(), m_configuration.getGridY(),
-                m_configuration.getGridX());
-        cp.setSize(m_configuration.getImageWidth(), m_configuration.getImageHeight());
-        int w = cp.getWidth();
-        int h = cp.getHeight();
-        BufferedImage bi = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
-        Graphics2D g = bi.createGraphics();
-        cp.paint(g);
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    private byte[] createImage(final PointStore points, final ExecutionMonitor exec) throws InterruptedException,
+            CanceledExecutionException {
+        if (m_configuration.isSvgImage()) {
+            return createSvgImage(points);
+        }
+        ExecutionStatistics.Phase phase = m_statistics.start("renderPng");
         try {
-            ImageIO.write(bi, "PNG", baos);
+            CoordinatePanelRenderer renderer = CoordinatePanelRenderer.create(m_configuration);
+            m_statistics.set("peakRasterBytes", renderer.estimateRasterMemory(points.size()));
+            byte[] png = renderer.createPng(points, exec, m_statistics);
+            phase.stop();
+            return png;
         } catch (IOException e) {
             LOGGER.error("Couldn't create an PNG Image of the Coordinate Panel", e);
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Writes the coordinate panel described by the configuration as SVG, element by element without a raster.
+     * @param points
+     *            the points of the output
+     * @return the SVG image of the coordinate panel encoded as UTF-8
+     */
+    private byte[] createSvgImage(final PointStore points) {
+        ExecutionStatistics.Phase phase = m_statistics.start("writeSvg");
+        try {
+            ByteArrayOutputStream svg = new ByteArrayOutputStream();
+            Writer out = new BufferedWriter(new OutputStreamWriter(svg, "UTF-8"));
+            SvgWriter.write(CoordinatePanelRenderer.create(m_configuration), points, out);
+            out.close();
+            phase.stop();
+            return svg.toByteArray();
+        } catch (IOException e) {
+            LOGGER.error("Couldn't create an SVG Image of the Coordinate Panel", e);
+            return new byte[0];
         }
-        return baos.toByteArray();
     }
 
     /**
@@ -217,16 +508,51 @@ public class CoordinatePanelNodeModel extends NodeModel {
             m_configuration = new CoordinatePanelNodeConfiguration();
         }
 
+        if (inSpecs[0] != null && m_configuration.isUseInputPoints()) {
+            if (PointTableReader.guessColumns(inSpecs[0], m_configuration)) {
+                setWarningMessage("Guessed the columns of the input points: " + m_configuration.getInputXColumn()
+                        + ", " + m_configuration.getInputYColumn() + " and " + m_configuration.getInputClassColumn());
+            }
+            // fails if the selected columns don't exist or have the wrong type
+            new PointTableReader(inSpecs[0], m_configuration);
+        }
+
+        if (!m_configuration.isSvgImage()) {
+            checkImageMemory();
+        }
         return getDataTableSpec();
     }
 
+    /**
+     * Warns if the image output likely needs more memory than is available. The points of the input table aren't
+     * known yet and are not taken into account.
+     */
+    private void checkImageMemory() {
+        int numberOfPoints = m_configuration.isGeneratorEnabled() ? m_configuration.getGeneratorPoints()
+                : m_configuration.getPointCount();
+        long required = CoordinatePanelRenderer.create(m_configuration).estimateMemory(numberOfPoints);
+
+        Runtime runtime = Runtime.getRuntime();
+        long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        if (required > available) {
+            setWarningMessage("Creating the image of " + m_configuration.getImageWidth() + "x"
+                    + m_configuration.getImageHeight() + " pixels needs about " + (required >> 20)
+                    + " MB of memory, but only " + (available >> 20) + " MB are available");
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected void saveSettingsTo(final NodeSettingsWO settings) {
         if (m_configuration != null) {
+            ExecutionStatistics statistics = new ExecutionStatistics("model save");
+            ExecutionStatistics.Phase phase = statistics.start("saveSettings");
             m_configuration.saveConfiguration(settings);
+            phase.stop();
+            statistics.set("points", m_configuration.getPointCount());
+            statistics.log(LOGGER);
         }
     }
 
@@ -235,8 +561,14 @@ public class CoordinatePanelNodeModel extends NodeModel {
      */
     @Override
     protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        ExecutionStatistics statistics = new ExecutionStatistics("model load");
+        ExecutionStatistics.Phase phase = statistics.start("loadSettings");
         CoordinatePanelNodeConfiguration c = new CoordinatePanelNodeConfiguration();
         c.loadConfigurationInModel(settings);
+        m_configuration = c;
+        phase.stop();
+        statistics.set("points", c.getPointCount());
+        statistics.log(LOGGER);
     }
 
     /**
@@ -246,7 +578,6 @@ public class CoordinatePanelNodeModel extends NodeModel {
     protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
         CoordinatePanelNodeConfiguration c = new CoordinatePanelNodeConfiguration();
         c.loadConfigurationInModel(settings);
-        m_configuration = c;
     }
 
     /**
@@ -255,7 +586,31 @@ public class CoordinatePanelNodeModel extends NodeModel {
     @Override
     protected void loadInternals(final File internDir, final ExecutionMonitor exec) throws IOException,
             CanceledExecutionException {
-        // nothing to load
+        File pointsFile = new File(internDir, PointStoreFile.FILE_NAME);
+        if (m_configuration == null || !m_configuration.hasEncodedPoints() || !pointsFile.isFile()) {
+            return;
+        }
+
+        // reading the points from the internals is faster than decoding the
+        // points of the settings, which are still used if the file is broken
+        // or doesn't match the settings
+        ExecutionStatistics statistics = new ExecutionStatistics("model load");
+        ExecutionStatistics.Phase phase = statistics.start("loadInternals");
+        PointStore points;
+        try {
+            points = PointStoreFile.read(pointsFile);
+        } catch (IOException e) {
+            LOGGER.warn("Couldn't read the points from " + pointsFile + ", using the points of the settings", e);
+            return;
+        }
+        phase.stop();
+        statistics.set("points", points.size());
+        statistics.set("bytesRead", pointsFile.length());
+        statistics.log(LOGGER);
+        if (!m_configuration.setStoredPoints(points)) {
+            LOGGER.warn("The points in " + pointsFile + " don't match the node settings, using the points of the"
+                    + " settings");
+        }
     }
 
     /**
@@ -264,7 +619,17 @@ public class CoordinatePanelNodeModel extends NodeModel {
     @Override
     protected void saveInternals(final File internDir, final ExecutionMonitor exec) throws IOException,
             CanceledExecutionException {
-        // nothing to save
+        if (m_configuration != null && m_configuration.isStorePointsInInternals()
+                && !m_configuration.hasEncodedPoints()) {
+            ExecutionStatistics statistics = new ExecutionStatistics("model save");
+            ExecutionStatistics.Phase phase = statistics.start("saveInternals");
+            File pointsFile = new File(internDir, PointStoreFile.FILE_NAME);
+            PointStoreFile.write(pointsFile, m_configuration.getPoints());
+            phase.stop();
+            statistics.set("points", m_configuration.getPoints().size());
+            statistics.set("bytesWritten", pointsFile.length());
+            statistics.log(LOGGER);
+        }
     }
 
 }
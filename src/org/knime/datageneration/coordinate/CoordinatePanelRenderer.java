@@ -0,0 +1,1134 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Renders a coordinate panel, i.e. the axes, the grid with its labels and the points, onto any {@link Graphics2D}. The
+ * renderer does not depend on any Swing component, it is used by the coordinate panel of the dialog as well as by the
+ * node model to create the image output without a component tree.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class CoordinatePanelRenderer {
+
+    /** The distance between the border of the image and the axes. */
+    static final int OFFSET = 20;
+
+    /** The diameter of a point on the screen. */
+    static final int POINT_SIZE = 10;
+
+    // upper bound for the number of pixels of a band of a striped image,
+    // 16 MiB as int RGB
+    private static final int BAND_PIXELS = 1 << 22;
+
+    // upper bound for the memory of the bands rendered in parallel but not
+    // yet encoded, 128 MiB
+    private static final long PENDING_BAND_BYTES = 1L << 27;
+
+    // distance between the center of a point and the last pixel it covers,
+    // including anti-aliasing
+    private static final int POINT_EXTENT = POINT_SIZE / 2 + 1;
+
+    /**
+     * The colors of the point classes, index 0 is the color of class 1.
+     */
+    private static final Color[] CLASS_COLORS = createClassColors();
+
+    private double m_minY;
+    private double m_maxY;
+    private double m_minX;
+    private double m_maxX;
+    private double m_gridY;
+    private double m_gridX;
+
+    // the part of the range which is mapped to the plot area, the whole range
+    // unless the panel is zoomed in
+    private double m_viewMinY;
+    private double m_viewMaxY;
+    private double m_viewMinX;
+    private double m_viewMaxX;
+
+    private int m_width;
+    private int m_height;
+
+    // above this number of points, a density image is drawn instead of
+    // the single points
+    private int m_densityThreshold = DensityRenderer.DEFAULT_THRESHOLD;
+
+    /**
+     * Creates a renderer with a size of 0x0 pixels.
+     *
+     * @param minY
+     *            the minimum y value of the y axis
+     * @param maxY
+     *            the maximum y value of the y axis
+     * @param minX
+     *            the minimum x value of the x axis
+     * @param maxX
+     *            the maximum x value of the x axis
+     * @param gridY
+     *            the distance between grid lines on the y axis
+     * @param gridX
+     *            the distance between grid lines on the x axis
+     */
+    CoordinatePanelRenderer(final double minY, final double maxY, final double minX, final double maxX,
+            final double gridY, final double gridX) {
+        m_minY = minY;
+        m_maxY = maxY;
+        m_minX = minX;
+        m_maxX = maxX;
+        m_gridY = gridY;
+        m_gridX = gridX;
+        resetViewport();
+    }
+
+    /**
+     * Creates a renderer for the image described by the given configuration.
+     *
+     * @param c
+     *            the configuration of a coordinate panel
+     * @return a renderer using the ranges, grid, image size and density threshold of the configuration
+     */
+    static CoordinatePanelRenderer create(final CoordinatePanelNodeConfiguration c) {
+        CoordinatePanelRenderer renderer = new CoordinatePanelRenderer(c.getMinY(), c.getMaxY(), c.getMinX(),
+                c.getMaxX(), c.getGridY(), c.getGridX());
+        renderer.setSize(c.getImageWidth(), c.getImageHeight());
+        renderer.setDensityThreshold(c.getDensityThreshold());
+        return renderer;
+    }
+
+    /**
+     * Renders the coordinate panel with the given points and encodes it as PNG. The image is rendered in horizontal
+     * bands of bounded size which are handed to the encoder one after another, so the memory needed doesn't grow
+     * with the height of the image. Each band only paints the points overlapping it. The bands are rendered in
+     * parallel on the {@link WorkerPool}, each into its own image, and encoded in their original order, so only a
+     * few bands are held in memory at any time. Progress and cancellation are checked once per band.
+     *
+     * @param points
+     *            the points to render
+     * @param exec
+     *            the execution monitor for progress and cancellation
+     * @param statistics
+     *            the statistics the time spent encoding is added to as phase "encodePng"
+     * @return the PNG image
+     * @throws IOException
+     *             if the image can't be encoded
+     * @throws InterruptedException
+     *             if the thread was interrupted while waiting for a band
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
+     */
+    byte[] createPng(final PointStore points, final ExecutionMonitor exec, final ExecutionStatistics statistics)
+            throws IOException, InterruptedException, CanceledExecutionException {
+        final PngEncoder encoder = new PngEncoder(m_width, m_height, isDensityMode(points.size()));
+        final int bandHeight = getBandHeight();
+        final int bands = (m_height + bandHeight - 1) / bandHeight;
+        final Rectangle plotArea = getPlotArea();
+
+        // large point sets are binned once, the density image is drawn into
+        // every band
+        BufferedImage density = null;
+        int[] bandOffsets = null;
+        int[] bandPoints = null;
+        if (isDensityMode(points.size())) {
+            density = new DensityRenderer(m_viewMinX, m_viewMaxX, m_viewMinY, m_viewMaxY).createImage(points, null,
+                    plotArea);
+        } else {
+            bandOffsets = new int[bands + 1];
+            bandPoints = assignToBands(points, bandHeight, bandOffsets);
+        }
+
+        final int maxPending = getMaxPendingBands(bandHeight);
+        final Deque<Future<BufferedImage>> pendingBands = new ArrayDeque<Future<BufferedImage>>(maxPending);
+        int nextBand = 0;
+        try {
+            for (int b = 0; b < bands; b++) {
+                while (nextBand < bands && pendingBands.size() < maxPending) {
+                    final int top = nextBand * bandHeight;
+                    final int rows = Math.min(bandHeight, m_height - top);
+                    final int first = bandOffsets == null ? 0 : bandOffsets[nextBand];
+                    final int last = bandOffsets == null ? 0 : bandOffsets[nextBand + 1];
+                    final BufferedImage bandDensity = density;
+                    final int[] bandIndices = bandPoints;
+                    pendingBands.add(WorkerPool.POOL.submit(new Callable<BufferedImage>() {
+                        @Override
+                        public BufferedImage call() {
+                            return renderBand(top, rows, points, bandDensity, plotArea, bandIndices, first, last);
+                        }
+                    }));
+                    nextBand++;
+                }
+
+                BufferedImage band = getBand(pendingBands.removeFirst());
+                ExecutionStatistics.Phase encoding = statistics.start("encodePng");
+                encoder.addRows(band, 0, band.getHeight());
+                encoding.stop();
+
+                exec.checkCanceled();
+                exec.setProgress((b + 1) / (double) bands, "Rendered band " + (b + 1) + " of " + bands);
+            }
+        } finally {
+            // only non-empty if the execution was canceled or has failed
+            for (Future<BufferedImage> band : pendingBands) {
+                band.cancel(false);
+            }
+        }
+        ExecutionStatistics.Phase encoding = statistics.start("encodePng");
+        byte[] png = encoder.finish();
+        encoding.stop();
+        return png;
+    }
+
+    private static BufferedImage getBand(final Future<BufferedImage> band) throws InterruptedException {
+        try {
+            return band.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Couldn't render a band of the image", cause);
+        }
+    }
+
+    /**
+     * Renders a band of the image into a new image of the band's size.
+     *
+     * @param top
+     *            the first row of the band
+     * @param rows
+     *            the number of rows of the band
+     * @param points
+     *            the points to render
+     * @param density
+     *            the density image to draw instead of the points or null
+     * @param plotArea
+     *            the plot area the density image is drawn into
+     * @param bandPoints
+     *            the indices of the points of all bands, ignored if a density image is drawn
+     * @param first
+     *            the position of the first point of this band in bandPoints
+     * @param last
+     *            the position after the last point of this band in bandPoints
+     * @return the band
+     */
+    private BufferedImage renderBand(final int top, final int rows, final PointStore points,
+            final BufferedImage density, final Rectangle plotArea, final int[] bandPoints, final int first,
+            final int last) {
+        final BufferedImage band = new BufferedImage(m_width, rows, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g2d = band.createGraphics();
+        g2d.clipRect(0, 0, m_width, rows);
+        g2d.translate(0, -top);
+        paintBackground(g2d);
+        if (density != null) {
+            DensityRenderer.drawImage(g2d, density, plotArea);
+        } else {
+            for (int i = first; i < last; i++) {
+                paintPoint(g2d, points, bandPoints[i]);
+            }
+        }
+        g2d.dispose();
+        return band;
+    }
+
+    /**
+     * Estimates the memory needed by {@link #createPng(PointStore, ExecutionMonitor, ExecutionStatistics)}.
+     *
+     * @param numberOfPoints
+     *            the number of points to render
+     * @return the estimated number of bytes
+     */
+    long estimateMemory(final int numberOfPoints) {
+        // a point overlapping two bands is listed twice
+        final long points = isDensityMode(numberOfPoints) ? 0 : 8L * numberOfPoints + 4L * m_height;
+        return estimateRasterMemory(numberOfPoints) + points + PngEncoder.estimateMemory(m_width, m_height);
+    }
+
+    /**
+     * Estimates the memory of the rasters held at the same time by
+     * {@link #createPng(PointStore, ExecutionMonitor, ExecutionStatistics)}, i.e. the bands in flight and the density
+     * image.
+     *
+     * @param numberOfPoints
+     *            the number of points to render
+     * @return the estimated number of bytes
+     */
+    long estimateRasterMemory(final int numberOfPoints) {
+        final int bandHeight = getBandHeight();
+        final int bands = (m_height + bandHeight - 1) / bandHeight;
+        long raster = 4L * m_width * bandHeight * Math.min(bands, getMaxPendingBands(bandHeight));
+        if (isDensityMode(numberOfPoints)) {
+            raster += DensityRenderer.estimateMemory(m_width - 2 * OFFSET, m_height - 2 * OFFSET);
+        }
+        return raster;
+    }
+
+    /**
+     * @param bandHeight
+     *            the number of rows of a band
+     * @return the number of bands which may be rendered but not yet encoded at any time
+     */
+    private int getMaxPendingBands(final int bandHeight) {
+        final long bandBytes = 4L * m_width * bandHeight;
+        return (int) Math.max(1, Math.min(WorkerPool.getMaxPendingTasks(), PENDING_BAND_BYTES / bandBytes));
+    }
+
+    /**
+     * @return the number of rows of a band of a striped image
+     */
+    private int getBandHeight() {
+        // a point overlaps at most two bands
+        final int bandHeight = Math.max(2 * POINT_EXTENT + 1, BAND_PIXELS / Math.max(1, m_width));
+        return Math.max(1, Math.min(m_height, bandHeight));
+    }
+
+    /**
+     * Sorts the indices of the points by the bands they overlap, the order of the points within a band is preserved.
+     *
+     * @param points
+     *            the points
+     * @param bandHeight
+     *            the number of rows of a band
+     * @param offsets
+     *            receives the start of the indices of each band, the last element is the total number of indices
+     * @return the indices of the points overlapping each band
+     */
+    private int[] assignToBands(final PointStore points, final int bandHeight, final int[] offsets) {
+        final int bands = offsets.length - 1;
+
+        // count the points per band, then fill in the indices
+        final int[] counts = new int[bands];
+        for (int i = 0; i < points.size(); i++) {
+            final int y = toScreenY(points.getY(i));
+            if (y + POINT_EXTENT < 0) {
+                continue;
+            }
+            final int first = Math.max(0, (y - POINT_EXTENT) / bandHeight);
+            final int last = Math.min(bands - 1, (y + POINT_EXTENT) / bandHeight);
+            for (int b = first; b <= last; b++) {
+                counts[b]++;
+            }
+        }
+        for (int b = 0; b < bands; b++) {
+            offsets[b + 1] = offsets[b] + counts[b];
+            counts[b] = offsets[b];
+        }
+
+        final int[] indices = new int[offsets[bands]];
+        for (int i = 0; i < points.size(); i++) {
+            final int y = toScreenY(points.getY(i));
+            if (y + POINT_EXTENT < 0) {
+                continue;
+            }
+            final int first = Math.max(0, (y - POINT_EXTENT) / bandHeight);
+            final int last = Math.min(bands - 1, (y + POINT_EXTENT) / bandHeight);
+            for (int b = first; b <= last; b++) {
+                indices[counts[b]++] = i;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Paints the whole coordinate panel.
+     *
+     * @param g2d
+     *            the graphics to paint on
+     * @param points
+     *            the points to paint
+     */
+    void paint(final Graphics2D g2d, final PointStore points) {
+        if (m_width < 1 || m_height < 1) {
+            return;
+        }
+        paintBackground(g2d);
+        paintPoints(g2d, points);
+    }
+
+    /**
+     * Paints the static layer of the coordinate panel: background, axes, grid lines and labels.
+     *
+     * @param g2d
+     *            the graphics to paint on
+     */
+    void paintBackground(final Graphics2D g2d) {
+
+        // use anti-aliasing
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        paintBackground(new GraphicsCanvas(g2d));
+    }
+
+    /**
+     * Paints the static layer of the coordinate panel onto any canvas, e.g. the vector image written by
+     * {@link SvgWriter}. Raster and vector images share this geometry.
+     *
+     * @param canvas
+     *            the canvas to paint on
+     */
+    void paintBackground(final Canvas canvas) {
+
+        // use white as background color
+        canvas.fillBackground(m_width, m_height);
+
+        // use a bigger stroke for the axis
+        canvas.setAxisStroke(true);
+
+        // get x,y coordinates of the origin origin
+        final int[] origin = transformCoordinateToScreen(0, 0);
+
+        // when zoomed in, the axes and the grid may extend beyond the plot
+        // area and are cut off at its border
+        final boolean zoomed = isZoomed();
+        if (zoomed) {
+            canvas.clip(getPlotArea());
+        }
+
+        // draw y axis
+        canvas.drawLine(origin[0], OFFSET, origin[0], m_height - OFFSET);
+        // draw x axis
+        canvas.drawLine(OFFSET, origin[1], m_width - OFFSET, origin[1]);
+
+        if (zoomed) {
+            canvas.resetClip();
+        }
+
+        // the arrows of an axis are only drawn if the axis is visible
+        final boolean xAxisVisible = !zoomed || (origin[1] >= OFFSET && origin[1] <= m_height - OFFSET);
+        final boolean yAxisVisible = !zoomed || (origin[0] >= OFFSET && origin[0] <= m_width - OFFSET);
+
+        // x axis left arrow
+        if (m_minX != 0 && xAxisVisible) {
+            canvas.drawLine(OFFSET, origin[1], OFFSET + 5, origin[1] - 5);
+            canvas.drawLine(OFFSET, origin[1], OFFSET + 5, origin[1] + 5);
+        }
+
+        // x axis right arrow
+        if (m_maxX != 0 && xAxisVisible) {
+            canvas.drawLine(m_width - OFFSET, origin[1], m_width - (OFFSET + 5), origin[1] - 5);
+            canvas.drawLine(m_width - OFFSET, origin[1], m_width - (OFFSET + 5), origin[1] + 5);
+        }
+
+        // y axis bottom arrow
+        if (m_minY != 0 && yAxisVisible) {
+            canvas.drawLine(origin[0], m_height - OFFSET, origin[0] - 5, m_height - (OFFSET + 5));
+            canvas.drawLine(origin[0], m_height - OFFSET, origin[0] + 5, m_height - (OFFSET + 5));
+        }
+
+        // y axis top arrow
+        if (m_maxY != 0 && yAxisVisible) {
+            canvas.drawLine(origin[0], OFFSET, origin[0] - 5, OFFSET + 5);
+            canvas.drawLine(origin[0], OFFSET, origin[0] + 5, OFFSET + 5);
+        }
+
+        // draw grid
+        canvas.setAxisStroke(false);
+        if (zoomed) {
+            canvas.clip(getPlotArea());
+        }
+
+        // calculate screen difference from one grid line to another grid
+        // line
+        final int[] gridPoint = transformCoordinateToScreen(m_gridX, m_gridY);
+        final int xDifference = Math.abs(gridPoint[0] - origin[0]);
+        final int yDifference = Math.abs(gridPoint[1] - origin[1]);
+
+        // draw x grid lines on the negative side and grid numbering
+        int count = 0;
+        for (int i = origin[0]; i > OFFSET * 2; i -= xDifference) {
+            canvas.drawLine(i, OFFSET, i, m_height - OFFSET);
+
+            if (count != 0 && count % 2 == 0 && m_gridX > 5) {
+                canvas.drawString(String.valueOf(((int) m_gridX * count) * -1), i + 2, origin[1] - 5);
+            }
+            ++count;
+        }
+
+        // draw x grid lines on the positive side and grid numbering
+        count = 0;
+        for (int i = origin[0]; i < m_width - OFFSET * 2; i += xDifference) {
+            canvas.drawLine(i, OFFSET, i, m_height - OFFSET);
+
+            if (count != 0 && count % 2 == 0 && m_gridX > 5) {
+                canvas.drawString(String.valueOf((int) m_gridX * count),
+                        i - canvas.stringWidth(String.valueOf((int) m_gridX * count)) - 2, origin[1] - 5);
+            }
+            ++count;
+        }
+
+        // draw y grid lines on the positive side
+        count = 0;
+        for (int i = origin[1]; i > OFFSET * 2; i -= yDifference) {
+            canvas.drawLine(OFFSET, i, m_width - OFFSET, i);
+
+            if (count != 0 && count % 2 == 0 && m_gridX > 5) {
+                canvas.drawString(String.valueOf((int) m_gridY * count), origin[0] + 4, i + 2 + canvas.getFontHeight());
+            }
+            ++count;
+        }
+
+        // draw y grid lines on the negative side
+        count = 0;
+        for (int i = origin[1]; i < m_height - OFFSET * 2; i += yDifference) {
+            canvas.drawLine(OFFSET, i, m_width - OFFSET, i);
+
+            if (count != 0 && count % 2 == 0 && m_gridX > 5) {
+                canvas.drawString(String.valueOf(((int) m_gridY * count) * -1), origin[0] + 4, i - 2);
+            }
+            ++count;
+        }
+
+        if (zoomed) {
+            canvas.resetClip();
+        }
+    }
+
+    /**
+     * Paints all points, as a density image if there are more points than the density threshold.
+     *
+     * @param g2d
+     *            the graphics to paint on
+     * @param points
+     *            the points to paint
+     */
+    void paintPoints(final Graphics2D g2d, final PointStore points) {
+        // use anti-aliasing
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        if (isDensityMode(points.size())) {
+            new DensityRenderer(m_viewMinX, m_viewMaxX, m_viewMinY, m_viewMaxY).paint(g2d, points, getPlotArea());
+            return;
+        }
+
+        // add points to coordinate system
+        for (int i = 0; i < points.size(); i++) {
+            paintPoint(g2d, points, i);
+        }
+    }
+
+    /**
+     * Paints the given subset of the points, as a density image if the subset is larger than the density threshold.
+     *
+     * @param g2d
+     *            the graphics to paint on
+     * @param points
+     *            the points
+     * @param indices
+     *            the indices of the points to paint, e.g. the points inside the viewport
+     */
+    void paintPoints(final Graphics2D g2d, final PointStore points, final int[] indices) {
+        // use anti-aliasing
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        if (isDensityMode(indices.length)) {
+            new DensityRenderer(m_viewMinX, m_viewMaxX, m_viewMinY, m_viewMaxY).paint(g2d, points, indices,
+                    getPlotArea());
+            return;
+        }
+
+        for (final int index : indices) {
+            paintPoint(g2d, points, index);
+        }
+    }
+
+    /**
+     * Paints a single point.
+     *
+     * @param g2d
+     *            the graphics to paint on
+     * @param points
+     *            the points
+     * @param index
+     *            the index of the point to paint
+     */
+    void paintPoint(final Graphics2D g2d, final PointStore points, final int index) {
+        // calculate the position on the screen from the coordinates
+        final int[] xy = transformCoordinateToScreen(points.getX(index), points.getY(index));
+        // use point color
+        g2d.setColor(getColor(points.getPointClass(index)));
+        g2d.fillOval(xy[0] - POINT_SIZE / 2, xy[1] - POINT_SIZE / 2, POINT_SIZE, POINT_SIZE);
+    }
+
+    /**
+     * @param numberOfPoints
+     *            the number of points to paint
+     * @return true if there are too many points to draw them one by one
+     */
+    boolean isDensityMode(final int numberOfPoints) {
+        return numberOfPoints > m_densityThreshold;
+    }
+
+    /**
+     * @return the screen area the range of the axes is mapped to
+     */
+    Rectangle getPlotArea() {
+        return new Rectangle(OFFSET, OFFSET, m_width - 2 * OFFSET, m_height - 2 * OFFSET);
+    }
+
+    /**
+     * Transforms a point on the screen to a point on the coordinate panel.
+     *
+     * @param x
+     *            , the x coordinate on the screen
+     * @param y
+     *            , the y coordinate on the screen
+     * @return A double[] array containing the x,y values on the coordinate panel
+     */
+    double[] transformScreenToCoordinate(final double x, final double y) {
+
+        double reversedY = m_height - y;
+
+        final double minScreenY = OFFSET;
+        final double maxScreenY = m_height - OFFSET;
+        final double minScreenX = OFFSET;
+        final double maxScreenX = m_width - OFFSET;
+
+        final double xCoordinate = (m_viewMaxX - m_viewMinX) * ((x - minScreenX) / (maxScreenX - minScreenX))
+                + m_viewMinX;
+        final double yCoordinate = (m_viewMaxY - m_viewMinY) * ((reversedY - minScreenY) / (maxScreenY - minScreenY))
+                + m_viewMinY;
+
+        return new double[] {xCoordinate, yCoordinate};
+    }
+
+    /**
+     * Transforms a point in the coordinate panel to a point on the screen.
+     *
+     * @param x
+     *            , the x coordinate in the coordinate panel
+     * @param y
+     *            , the y coordinate in the coordinate panel
+     * @return A double[] array containing the x,y values on the screen
+     */
+    int[] transformCoordinateToScreen(final double x, final double y) {
+
+        final double minScreenX = OFFSET;
+        final double maxScreenX = m_width - OFFSET;
+
+        final double xCoordinate = (maxScreenX - minScreenX) * ((x - m_viewMinX) / (m_viewMaxX - m_viewMinX))
+                + minScreenX;
+
+        return new int[] {(int) xCoordinate, toScreenY(y)};
+    }
+
+    /**
+     * Transforms a y value in the coordinate panel to a row on the screen, like
+     * {@link #transformCoordinateToScreen(double, double)} but without allocating an array.
+     *
+     * @param y
+     *            the y coordinate in the coordinate panel
+     * @return the y value on the screen
+     */
+    int toScreenY(final double y) {
+        final double minScreenY = OFFSET;
+        final double maxScreenY = m_height - OFFSET;
+
+        final double yCoordinate = (maxScreenY - minScreenY) * ((y - m_viewMinY) / (m_viewMaxY - m_viewMinY))
+                + minScreenY;
+
+        return m_height - (int) yCoordinate;
+    }
+
+    /**
+     * Transforms a point in the coordinate panel to a point in the image without rounding, e.g. for vector images.
+     *
+     * @param x
+     *            , the x coordinate in the coordinate panel
+     * @param y
+     *            , the y coordinate in the coordinate panel
+     * @return A double[] array containing the x,y values in the image
+     */
+    double[] transformCoordinateToImage(final double x, final double y) {
+        final double xCoordinate = (m_width - 2 * OFFSET) * ((x - m_viewMinX) / (m_viewMaxX - m_viewMinX)) + OFFSET;
+        final double yCoordinate = (m_height - 2 * OFFSET) * ((y - m_viewMinY) / (m_viewMaxY - m_viewMinY)) + OFFSET;
+
+        return new double[] {xCoordinate, m_height - yCoordinate};
+    }
+
+    /**
+     * Searches the point nearest to the given screen coordinates, only points which are at most radius pixels away
+     * along both axes are considered.
+     *
+     * @param points
+     *            the points to search
+     * @param index
+     *            the index of the points, only used to narrow down the candidates
+     * @param x
+     *            , x coordinate on the screen
+     * @param y
+     *            , y coordinate on the screen
+     * @param radius
+     *            the maximum distance in pixels
+     * @return the index of the nearest point or -1 if there is no point nearby
+     */
+    int findNearestPoint(final PointStore points, final PointIndex index, final int x, final int y,
+            final int radius) {
+        final double[] topLeft = transformScreenToCoordinate(x - radius - 1, y - radius - 1);
+        final double[] bottomRight = transformScreenToCoordinate(x + radius + 1, y + radius + 1);
+        final int[] candidates = index.query(points, topLeft[0], bottomRight[0], bottomRight[1], topLeft[1]);
+
+        int nearestPoint = -1;
+        double minDistance = Double.MAX_VALUE;
+        for (final int i : candidates) {
+            final int[] pointToScreen = transformCoordinateToScreen(points.getX(i), points.getY(i));
+            if (Math.abs(x - pointToScreen[0]) > radius || Math.abs(y - pointToScreen[1]) > radius) {
+                continue;
+            }
+
+            final double[] screen = transformCoordinateToImage(points.getX(i), points.getY(i));
+            final double distance = Math.sqrt(Math.pow(x - screen[0], 2) + Math.pow(y - screen[1], 2));
+            if (distance < minDistance) {
+                minDistance = distance;
+                nearestPoint = i;
+            }
+        }
+        return nearestPoint;
+    }
+
+    /**
+     * Sets the size of the rendered image.
+     *
+     * @param width
+     *            the width in pixels
+     * @param height
+     *            the height in pixels
+     */
+    void setSize(final int width, final int height) {
+        m_width = width;
+        m_height = height;
+    }
+
+    /**
+     * @return the width of the rendered image
+     */
+    int getWidth() {
+        return m_width;
+    }
+
+    /**
+     * @return the height of the rendered image
+     */
+    int getHeight() {
+        return m_height;
+    }
+
+    /**
+     * @return the minimum y value of the y axis
+     */
+    double getMinY() {
+        return m_minY;
+    }
+
+    /**
+     * @param minY
+     *            the new minimum y value of the y axis
+     */
+    void setMinY(final double minY) {
+        m_minY = minY;
+        resetViewport();
+    }
+
+    /**
+     * @return the maximum y value of the y axis
+     */
+    double getMaxY() {
+        return m_maxY;
+    }
+
+    /**
+     * @param maxY
+     *            the new maximum y value of the y axis
+     */
+    void setMaxY(final double maxY) {
+        m_maxY = maxY;
+        resetViewport();
+    }
+
+    /**
+     * @return the minimum x value of the x axis
+     */
+    double getMinX() {
+        return m_minX;
+    }
+
+    /**
+     * @param minX
+     *            the new minimum x value of the x axis
+     */
+    void setMinX(final double minX) {
+        m_minX = minX;
+        resetViewport();
+    }
+
+    /**
+     * @return the maximum x value of the x axis
+     */
+    double getMaxX() {
+        return m_maxX;
+    }
+
+    /**
+     * @param maxX
+     *            the new maximum x value of the x axis
+     */
+    void setMaxX(final double maxX) {
+        m_maxX = maxX;
+        resetViewport();
+    }
+
+    /**
+     * Sets the part of the range which is mapped to the plot area, e.g. to zoom into the panel. Changing the range of
+     * an axis resets the viewport to the whole range.
+     *
+     * @param minX
+     *            the minimum visible x value
+     * @param maxX
+     *            the maximum visible x value
+     * @param minY
+     *            the minimum visible y value
+     * @param maxY
+     *            the maximum visible y value
+     */
+    void setViewport(final double minX, final double maxX, final double minY, final double maxY) {
+        m_viewMinX = minX;
+        m_viewMaxX = maxX;
+        m_viewMinY = minY;
+        m_viewMaxY = maxY;
+    }
+
+    /**
+     * Shows the whole range of the axes again.
+     */
+    void resetViewport() {
+        setViewport(m_minX, m_maxX, m_minY, m_maxY);
+    }
+
+    /**
+     * @return true if only a part of the range of the axes is visible
+     */
+    boolean isZoomed() {
+        return m_viewMinX != m_minX || m_viewMaxX != m_maxX || m_viewMinY != m_minY || m_viewMaxY != m_maxY;
+    }
+
+    /**
+     * @return the minimum visible y value
+     */
+    double getViewMinY() {
+        return m_viewMinY;
+    }
+
+    /**
+     * @return the maximum visible y value
+     */
+    double getViewMaxY() {
+        return m_viewMaxY;
+    }
+
+    /**
+     * @return the minimum visible x value
+     */
+    double getViewMinX() {
+        return m_viewMinX;
+    }
+
+    /**
+     * @return the maximum visible x value
+     */
+    double getViewMaxX() {
+        return m_viewMaxX;
+    }
+
+    /**
+     * @return the distance between grid lines on the y axis
+     */
+    double getGridY() {
+        return m_gridY;
+    }
+
+    /**
+     * @param gridY
+     *            the new distance between grid lines on the y axis
+     */
+    void setGridY(final double gridY) {
+        m_gridY = gridY;
+    }
+
+    /**
+     * @return the distance between grid lines on the x axis
+     */
+    double getGridX() {
+        return m_gridX;
+    }
+
+    /**
+     * @param gridX
+     *            the new distance between grid lines on the x axis
+     */
+    void setGridX(final double gridX) {
+        m_gridX = gridX;
+    }
+
+    /**
+     * @return the number of points above which a density image is drawn
+     */
+    int getDensityThreshold() {
+        return m_densityThreshold;
+    }
+
+    /**
+     * @param densityThreshold
+     *            the number of points above which a density image is drawn
+     */
+    void setDensityThreshold(final int densityThreshold) {
+        m_densityThreshold = densityThreshold;
+    }
+
+    /**
+     * @param pointClass
+     *            the class of a point (1-54)
+     * @return The color assigned to a point of the given class
+     */
+    static Color getColor(final int pointClass) {
+        return CLASS_COLORS[pointClass - 1];
+    }
+
+    private static Color[] createClassColors() {
+        final Color[] colors = new Color[54];
+        for (int i = 0; i < colors.length; i++) {
+            colors[i] = hex2Rgb(excelColors(i + 1));
+        }
+        return colors;
+    }
+
+    /**
+     * Assigns each class a different color, using the excel color set see:
+     * (http://dmcritchie.mvps.org/excel/colors.htm | last accessed 18.02.2013).
+     *
+     * @param pointClass
+     *            the class of a point
+     * @return
+     */
+    private static String excelColors(final int pointClass) {
+        final String[] excelHexColors = {"#FF0000", "#00FF00", "#0000FF", "#FFFF00", "#FF00FF", "#00FFFF",
+                "#800000", "#008000", "#000080", "#808000", "#800080", "#008080", "#C0C0C0", "#808080", "#9999FF",
+                "#993366", "#FFFFCC", "#CCFFFF", "#660066", "#FF8080", "#0066CC", "#CCCCFF", "#000080", "#FF00FF",
+                "#FFFF00", "#00FFFF", "#800080", "#800000", "#008080", "#0000FF", "#00CCFF", "#CCFFFF", "#CCFFCC",
+                "#FFFF99", "#99CCFF", "#FF99CC", "#CC99FF", "#FFCC99", "#3366FF", "#33CCCC", "#99CC00", "#FFCC00",
+                "#FF9900", "#FF6600", "#666699", "#969696", "#003366", "#339966", "#003300", "#333300", "#993300",
+                "#993366", "#333399", "#333333" };
+        return excelHexColors[pointClass - 1];
+    }
+
+    /**
+     * Turns a hex representation of an RGB color into a color.
+     *
+     * @param colorStr
+     *            a hex representation of a color
+     * @return A Color
+     */
+    private static Color hex2Rgb(final String colorStr) {
+        return new Color(Integer.valueOf(colorStr.substring(1, 3), 16),
+                Integer.valueOf(colorStr.substring(3, 5), 16),
+                Integer.valueOf(colorStr.substring(5, 7), 16));
+    }
+
+    /**
+     * Target of the static layer of the coordinate panel, either a {@link Graphics2D} or a vector image.
+     */
+    interface Canvas {
+
+        /**
+         * Fills the whole image white, further elements are drawn in black.
+         *
+         * @param width
+         *            the width of the image
+         * @param height
+         *            the height of the image
+         */
+        void fillBackground(int width, int height);
+
+        /**
+         * @param axis
+         *            true to draw the following lines with the wide stroke of the axes, false for the default stroke
+         */
+        void setAxisStroke(boolean axis);
+
+        /**
+         * Cuts off everything drawn outside of the given area until {@link #resetClip()} is called.
+         *
+         * @param area
+         *            the area to draw in
+         */
+        void clip(Rectangle area);
+
+        /**
+         * Removes the clip set by {@link #clip(Rectangle)}.
+         */
+        void resetClip();
+
+        /**
+         * Draws a line.
+         *
+         * @param x1
+         *            x coordinate of the start
+         * @param y1
+         *            y coordinate of the start
+         * @param x2
+         *            x coordinate of the end
+         * @param y2
+         *            y coordinate of the end
+         */
+        void drawLine(int x1, int y1, int x2, int y2);
+
+        /**
+         * Draws a label, the baseline of its first character is at the given position.
+         *
+         * @param text
+         *            the label
+         * @param x
+         *            x coordinate of the label
+         * @param y
+         *            y coordinate of the baseline
+         */
+        void drawString(String text, int x, int y);
+
+        /**
+         * @param text
+         *            a label
+         * @return the width of the label
+         */
+        int stringWidth(String text);
+
+        /**
+         * @return the height of a line of text
+         */
+        int getFontHeight();
+    }
+
+    /**
+     * Canvas drawing onto a {@link Graphics2D}.
+     */
+    private static final class GraphicsCanvas implements Canvas {
+
+        private final Graphics2D m_g2d;
+        private final Stroke m_defaultStroke;
+        private final Shape m_defaultClip;
+        private final FontMetrics m_fontMetrics;
+
+        GraphicsCanvas(final Graphics2D g2d) {
+            m_g2d = g2d;
+            m_defaultStroke = g2d.getStroke();
+            m_defaultClip = g2d.getClip();
+            m_fontMetrics = g2d.getFontMetrics();
+        }
+
+        @Override
+        public void fillBackground(final int width, final int height) {
+            m_g2d.setColor(Color.white);
+            m_g2d.fillRect(0, 0, width, height);
+            m_g2d.setColor(Color.black);
+        }
+
+        @Override
+        public void setAxisStroke(final boolean axis) {
+            m_g2d.setStroke(axis ? new BasicStroke(3f) : m_defaultStroke);
+        }
+
+        @Override
+        public void clip(final Rectangle area) {
+            m_g2d.clip(area);
+        }
+
+        @Override
+        public void resetClip() {
+            m_g2d.setClip(m_defaultClip);
+        }
+
+        @Override
+        public void drawLine(final int x1, final int y1, final int x2, final int y2) {
+            m_g2d.drawLine(x1, y1, x2, y2);
+        }
+
+        @Override
+        public void drawString(final String text, final int x, final int y) {
+            m_g2d.drawString(text, x, y);
+        }
+
+        @Override
+        public int stringWidth(final String text) {
+            return m_fontMetrics.stringWidth(text);
+        }
+
+        @Override
+        public int getFontHeight() {
+            return m_fontMetrics.getHeight();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+/**
+ * Immutable state of a coordinate panel: the ranges of the axes, the grid and the points. Taking a snapshot takes
+ * constant time, the points are shared with the panel until it modifies them. A snapshot can be saved on any thread
+ * while the panel is edited further.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class CoordinatePanelSnapshot {
+
+    private final int m_minY;
+    private final int m_maxY;
+    private final int m_minX;
+    private final int m_maxX;
+    private final int m_gridY;
+    private final int m_gridX;
+    private final PointStore m_points;
+
+    /**
+     * @param minY
+     *            the minimum y value of the y axis
+     * @param maxY
+     *            the maximum y value of the y axis
+     * @param minX
+     *            the minimum x value of the x axis
+     * @param maxX
+     *            the maximum x value of the x axis
+     * @param gridY
+     *            the distance between grid lines on the y axis
+     * @param gridX
+     *            the distance between grid lines on the x axis
+     * @param points
+     *            a snapshot of the points of the panel, which must not be modified
+     */
+    CoordinatePanelSnapshot(final int minY, final int maxY, final int minX, final int maxX, final int gridY,
+            final int gridX, final PointStore points) {
+        m_minY = minY;
+        m_maxY = maxY;
+        m_minX = minX;
+        m_maxX = maxX;
+        m_gridY = gridY;
+        m_gridX = gridX;
+        m_points = points;
+    }
+
+    /**
+     * Writes the ranges, the grid and the points of this snapshot to a configuration. The configuration refers to the
+     * points of this snapshot.
+     *
+     * @param c
+     *            the configuration
+     */
+    void applyTo(final CoordinatePanelNodeConfiguration c) {
+        c.setMinY(m_minY);
+        c.setMaxY(m_maxY);
+        c.setMinX(m_minX);
+        c.setMaxX(m_maxX);
+        c.setGridY(m_gridY);
+        c.setGridX(m_gridX);
+        c.setPoints(m_points);
+    }
+}
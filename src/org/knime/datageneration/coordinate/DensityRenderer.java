@@ -0,0 +1,248 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+/**
+ * Level of detail renderer for large point sets. Instead of drawing a marker per point, the points are binned into a
+ * grid of cells in a single pass. Each non-empty cell is drawn in the mean color of the classes of its points, its
+ * opacity grows logarithmically with the number of points. The rendering time is bounded by the number of cells, not
+ * by the number of points.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class DensityRenderer {
+
+    /** Default number of points above which the density renderer is used. */
+    static final int DEFAULT_THRESHOLD = 100000;
+
+    // upper bound for the number of cells, larger areas use cells of more
+    // than one pixel
+    private static final int MAX_CELLS = 1 << 20;
+
+    private static final float MIN_ALPHA = 0.25f;
+
+    private final double m_minX;
+    private final double m_maxX;
+    private final double m_minY;
+    private final double m_maxY;
+
+    /**
+     * Creates a density renderer for the given range of the coordinate panel.
+     *
+     * @param minX
+     *            the minimum x value of the x axis
+     * @param maxX
+     *            the maximum x value of the x axis
+     * @param minY
+     *            the minimum y value of the y axis
+     * @param maxY
+     *            the maximum y value of the y axis
+     */
+    DensityRenderer(final double minX, final double maxX, final double minY, final double maxY) {
+        m_minX = minX;
+        m_maxX = maxX;
+        m_minY = minY;
+        m_maxY = maxY;
+    }
+
+    /**
+     * Paints the density image of the given points.
+     *
+     * @param g2d
+     *            the graphics to paint on
+     * @param points
+     *            the points to paint
+     * @param plotArea
+     *            the screen area the range of the coordinate panel is mapped to
+     */
+    void paint(final Graphics2D g2d, final PointStore points, final Rectangle plotArea) {
+        paint(g2d, points, null, plotArea);
+    }
+
+    /**
+     * Paints the density image of a subset of the given points.
+     *
+     * @param g2d
+     *            the graphics to paint on
+     * @param points
+     *            the points
+     * @param indices
+     *            the indices of the points to paint or null to paint all points
+     * @param plotArea
+     *            the screen area the range of the coordinate panel is mapped to
+     */
+    void paint(final Graphics2D g2d, final PointStore points, final int[] indices, final Rectangle plotArea) {
+        final BufferedImage density = createImage(points, indices, plotArea);
+        if (density != null) {
+            drawImage(g2d, density, plotArea);
+        }
+    }
+
+    /**
+     * Creates the density image of a subset of the given points, one pixel per cell. The image is drawn with
+     * {@link #drawImage(Graphics2D, BufferedImage, Rectangle)}, e.g. once per band of a striped image.
+     *
+     * @param points
+     *            the points
+     * @param indices
+     *            the indices of the points to paint or null to paint all points
+     * @param plotArea
+     *            the screen area the range of the coordinate panel is mapped to
+     * @return the density image or null if no point lies inside the range
+     */
+    BufferedImage createImage(final PointStore points, final int[] indices, final Rectangle plotArea) {
+        if (plotArea.width < 1 || plotArea.height < 1 || m_maxX <= m_minX || m_maxY <= m_minY) {
+            return null;
+        }
+
+        final int cellSize = getCellSize(plotArea.width, plotArea.height);
+        final int cellsX = (plotArea.width + cellSize - 1) / cellSize;
+        final int cellsY = (plotArea.height + cellSize - 1) / cellSize;
+
+        // accumulate the class colors and the number of points per cell
+        final float[] red = new float[cellsX * cellsY];
+        final float[] green = new float[cellsX * cellsY];
+        final float[] blue = new float[cellsX * cellsY];
+        final int[] counts = new int[cellsX * cellsY];
+
+        final double scaleX = cellsX / (m_maxX - m_minX);
+        final double scaleY = cellsY / (m_maxY - m_minY);
+        int maxCount = 0;
+        final int size = indices == null ? points.size() : indices.length;
+        for (int j = 0; j < size; j++) {
+            final int i = indices == null ? j : indices[j];
+            final int cx = (int) ((points.getX(i) - m_minX) * scaleX);
+            // the y axis points upwards, image rows downwards
+            final int cy = cellsY - 1 - (int) ((points.getY(i) - m_minY) * scaleY);
+            if (cx < 0 || cx >= cellsX || cy < 0 || cy >= cellsY) {
+                continue;
+            }
+            final int cell = cy * cellsX + cx;
+            final Color color = CoordinatePanelRenderer.getColor(points.getPointClass(i));
+            red[cell] += color.getRed();
+            green[cell] += color.getGreen();
+            blue[cell] += color.getBlue();
+            maxCount = Math.max(maxCount, ++counts[cell]);
+        }
+
+        if (maxCount == 0) {
+            return null;
+        }
+
+        // turn the accumulated values into colors
+        final BufferedImage density = new BufferedImage(cellsX, cellsY, BufferedImage.TYPE_INT_ARGB);
+        final int[] argb = new int[cellsX * cellsY];
+        final double logMax = Math.log1p(maxCount);
+        for (int cell = 0; cell < argb.length; cell++) {
+            final int count = counts[cell];
+            if (count == 0) {
+                continue;
+            }
+            final float alpha = MIN_ALPHA + (1f - MIN_ALPHA) * (float) (Math.log1p(count) / logMax);
+            argb[cell] = ((int) (alpha * 255) << 24) | ((int) (red[cell] / count) << 16)
+                    | ((int) (green[cell] / count) << 8) | (int) (blue[cell] / count);
+        }
+        density.setRGB(0, 0, cellsX, cellsY, argb, 0, cellsX);
+        return density;
+    }
+
+    /**
+     * Draws a density image scaled to the plot area.
+     *
+     * @param g2d
+     *            the graphics to paint on
+     * @param density
+     *            the density image
+     * @param plotArea
+     *            the screen area the range of the coordinate panel is mapped to
+     */
+    static void drawImage(final Graphics2D g2d, final BufferedImage density, final Rectangle plotArea) {
+        final Object interpolation = g2d.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        g2d.drawImage(density, plotArea.x, plotArea.y, plotArea.width, plotArea.height, null);
+        if (interpolation != null) {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        }
+    }
+
+    /**
+     * @param width
+     *            the width of the plot area
+     * @param height
+     *            the height of the plot area
+     * @return the number of bytes needed to create a density image for a plot area of the given size
+     */
+    static long estimateMemory(final int width, final int height) {
+        final int cellSize = getCellSize(Math.max(1, width), Math.max(1, height));
+        final long cells = (long) ((width + cellSize - 1) / cellSize) * ((height + cellSize - 1) / cellSize);
+        // three color sums, the counts, the pixels and the image itself
+        return cells * 4 * 6;
+    }
+
+    /**
+     * @param width
+     *            the width of the plot area
+     * @param height
+     *            the height of the plot area
+     * @return the edge length of a cell in pixels, so that there are at most {@link #MAX_CELLS} cells
+     */
+    private static int getCellSize(final int width, final int height) {
+        final long pixels = (long) width * height;
+        int cellSize = 1;
+        while (pixels / ((long) cellSize * cellSize) > MAX_CELLS) {
+            cellSize++;
+        }
+        return cellSize;
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Records the wall and CPU time of the phases of an execution, e.g. reading the input or rendering the image, and
+ * counters like the number of points or bytes written. The statistics are logged as single debug lines of
+ * <code>key=value</code> pairs which are easy to scrape, and can be published as flow variables.
+ * <p>
+ * The CPU time is the time of the thread which runs the phase. Work handed over to the {@link WorkerPool} only
+ * shows up in the wall time.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class ExecutionStatistics {
+
+    /** The prefix of the names of the flow variables. */
+    static final String FLOW_VARIABLE_PREFIX = "coordinatePanel.";
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final String m_scope;
+
+    // wall and CPU nanoseconds per phase, in the order the phases were first
+    // started
+    private final Map<String, long[]> m_phases = new LinkedHashMap<String, long[]>();
+
+    private final Map<String, Long> m_counters = new LinkedHashMap<String, Long>();
+
+    /**
+     * @param scope
+     *            the name of what is measured, e.g. "execute", it starts every log line
+     */
+    ExecutionStatistics(final String scope) {
+        m_scope = scope;
+    }
+
+    /**
+     * Starts to measure a phase. A phase started several times accumulates its times.
+     *
+     * @param phase
+     *            the name of the phase
+     * @return the running measurement, which has to be stopped once the phase is done
+     */
+    Phase start(final String phase) {
+        return new Phase(phase);
+    }
+
+    /**
+     * Sets a counter.
+     *
+     * @param counter
+     *            the name of the counter
+     * @param value
+     *            the value of the counter
+     */
+    void set(final String counter, final long value) {
+        m_counters.put(counter, value);
+    }
+
+    /**
+     * Adds to a counter which is zero if it hasn't been set yet.
+     *
+     * @param counter
+     *            the name of the counter
+     * @param value
+     *            the value to add
+     */
+    void add(final String counter, final long value) {
+        Long current = m_counters.get(counter);
+        m_counters.put(counter, current == null ? value : current + value);
+    }
+
+    /**
+     * @return the wall time in milliseconds per phase
+     */
+    Map<String, Double> getWallTimes() {
+        return getTimes(0);
+    }
+
+    /**
+     * @return the CPU time in milliseconds per phase, phases are missing if the JVM doesn't measure CPU time
+     */
+    Map<String, Double> getCpuTimes() {
+        return getTimes(1);
+    }
+
+    private Map<String, Double> getTimes(final int index) {
+        Map<String, Double> times = new LinkedHashMap<String, Double>();
+        for (Map.Entry<String, long[]> phase : m_phases.entrySet()) {
+            if (phase.getValue()[index] >= 0) {
+                times.put(phase.getKey(), phase.getValue()[index] / 1e6);
+            }
+        }
+        return times;
+    }
+
+    /**
+     * @return the counters in the order they were first set
+     */
+    Map<String, Long> getCounters() {
+        return m_counters;
+    }
+
+    /**
+     * Logs one debug line per phase and one with all counters, e.g.
+     * <code>Coordinate Panel execute phase=image wallMs=12.345 cpuMs=10.000</code>.
+     *
+     * @param logger
+     *            the logger to write to
+     */
+    void log(final NodeLogger logger) {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, long[]> phase : m_phases.entrySet()) {
+            StringBuilder line = new StringBuilder("Coordinate Panel ").append(m_scope);
+            line.append(" phase=").append(phase.getKey());
+            line.append(" wallMs=").append(format(phase.getValue()[0]));
+            if (phase.getValue()[1] >= 0) {
+                line.append(" cpuMs=").append(format(phase.getValue()[1]));
+            }
+            logger.debug(line.toString());
+        }
+        if (!m_counters.isEmpty()) {
+            StringBuilder line = new StringBuilder("Coordinate Panel ").append(m_scope).append(" counters");
+            for (Map.Entry<String, Long> counter : m_counters.entrySet()) {
+                line.append(' ').append(counter.getKey()).append('=').append(counter.getValue());
+            }
+            logger.debug(line.toString());
+        }
+    }
+
+    private static String format(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static long getCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled()
+                ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    /**
+     * The running measurement of a phase.
+     */
+    final class Phase {
+
+        private final String m_name;
+
+        private final long m_startWall;
+
+        private final long m_startCpu;
+
+        private Phase(final String name) {
+            m_name = name;
+            m_startWall = System.nanoTime();
+            m_startCpu = getCpuTime();
+        }
+
+        /**
+         * Stops the measurement and adds its times to the phase. Has to be called by the thread which started it.
+         */
+        void stop() {
+            long wall = System.nanoTime() - m_startWall;
+            long endCpu = getCpuTime();
+            long cpu = m_startCpu < 0 || endCpu < 0 ? -1 : endCpu - m_startCpu;
+
+            long[] times = m_phases.get(m_name);
+            if (times == null) {
+                m_phases.put(m_name, new long[] {wall, cpu});
+            } else {
+                times[0] += wall;
+                times[1] = times[1] < 0 || cpu < 0 ? -1 : times[1] + cpu;
+            }
+        }
+    }
+}
@@ -0,0 +1,552 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * PNG encoder for images of the coordinate panel. These images usually only consist of white, black, the colors of the
+ * point classes and the shades created by anti-aliasing, so they are written as 8 bit palette images. The palette is
+ * seeded with the fixed colors, further colors are added as they appear. If an image has more than 256 colors, e.g.
+ * many overlapping anti-aliased points, the rows encoded so far are converted and the image is written as 24 bit
+ * truecolor image instead, so no color is ever changed. Density images blend the class colors and are written as
+ * truecolor images right away. Palette rows are not filtered, truecolor rows use the sub filter, which are the
+ * recommended settings, and the image data is compressed with a fast deflate level.
+ * <p>
+ * Like pigz, the filtered rows are split into blocks which are deflated concurrently on a fork-join pool. Each block
+ * uses the last 32 KiB of its predecessor as dictionary and is terminated with a sync flush, so the compressed blocks
+ * can be concatenated into a single valid zlib stream.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class PngEncoder {
+
+    private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+
+    private static final int COLOR_TYPE_TRUECOLOR = 2;
+
+    private static final int COLOR_TYPE_PALETTE = 3;
+
+    private static final int FILTER_NONE = 0;
+
+    private static final int FILTER_SUB = 1;
+
+    private static final int DEFLATE_LEVEL = 4;
+
+    // number of uncompressed bytes deflated by one task
+    private static final int BLOCK_SIZE = 1 << 18;
+
+    // size of the deflate window, the dictionary of a block
+    private static final int DICTIONARY_SIZE = 1 << 15;
+
+    // blocks waiting for compression, at most this many blocks are kept in
+    // memory
+    private static final int MAX_PENDING_BLOCKS = WorkerPool.getMaxPendingTasks();
+
+    private final int m_width;
+    private final int m_height;
+
+    private final Palette m_palette = new Palette();
+    private final ByteArrayOutputStream m_imageData = new ByteArrayOutputStream();
+    private final Adler32 m_adler = new Adler32();
+
+    private final Deque<Future<byte[]>> m_pendingBlocks = new ArrayDeque<Future<byte[]>>();
+    private byte[] m_block = new byte[BLOCK_SIZE];
+    private int m_blockLength;
+    private byte[] m_dictionary;
+
+    private final int[] m_rgbRow;
+    private final byte[] m_indexRow;
+
+    // set once the image is written as truecolor image, the row is only
+    // allocated then
+    private boolean m_truecolor;
+    private byte[] m_truecolorRow;
+
+    private int m_rows;
+
+    /**
+     * Creates an encoder for an image of the given size.
+     *
+     * @param width
+     *            the width of the image
+     * @param height
+     *            the height of the image
+     * @param truecolor
+     *            true if the image likely has more than 256 colors and should be written as truecolor image right
+     *            away, otherwise it is only written as truecolor image once its colors don't fit into the palette
+     */
+    PngEncoder(final int width, final int height, final boolean truecolor) {
+        m_width = width;
+        m_height = height;
+        m_rgbRow = new int[width];
+        // every row starts with the filter type
+        m_indexRow = new byte[width + 1];
+        if (truecolor) {
+            m_truecolor = true;
+            m_truecolorRow = new byte[width * 3 + 1];
+        }
+
+        // zlib header, deflate with a 32K window and no preset dictionary
+        m_imageData.write(0x78);
+        m_imageData.write(0x5E);
+    }
+
+    /**
+     * @param width
+     *            the width of the image
+     * @param height
+     *            the height of the image
+     * @return the number of bytes needed to encode an image of the given size, excluding the rows handed to the
+     *         encoder
+     */
+    static long estimateMemory(final int width, final int height) {
+        // the blocks waiting for compression and their compressed output
+        final long blocks = (MAX_PENDING_BLOCKS + 1L) * BLOCK_SIZE * 2;
+        // the compressed image data is copied once into the PNG file, images
+        // of the coordinate panel usually compress far better than 1:8
+        final long imageData = (width + 1L) * height / 8 * 2;
+        return blocks + imageData + width * 8L;
+    }
+
+    /**
+     * Appends rows of the given image to the encoded image.
+     *
+     * @param image
+     *            the image holding the rows, must have the width of the encoded image
+     * @param firstRow
+     *            the first row of the image to append
+     * @param numberOfRows
+     *            the number of rows to append
+     * @throws IOException
+     *             if a block of rows can't be compressed
+     */
+    void addRows(final BufferedImage image, final int firstRow, final int numberOfRows) throws IOException {
+        if (image.getWidth() != m_width || m_rows + numberOfRows > m_height) {
+            throw new IllegalArgumentException("The rows don't fit into an image of size " + m_width + "x"
+                    + m_height);
+        }
+        final boolean intRgb = image.getType() == BufferedImage.TYPE_INT_RGB;
+        for (int y = firstRow; y < firstRow + numberOfRows; y++) {
+            if (intRgb) {
+                // direct access to the raster avoids the color model conversion
+                image.getRaster().getDataElements(0, y, m_width, 1, m_rgbRow);
+            } else {
+                image.getRGB(0, y, m_width, 1, m_rgbRow, 0, m_width);
+            }
+
+            if (!m_truecolor && !toIndexRow()) {
+                switchToTruecolor();
+            }
+            if (m_truecolor) {
+                deflateTruecolorRow(m_rgbRow);
+            } else {
+                deflate(m_indexRow);
+            }
+        }
+        m_rows += numberOfRows;
+    }
+
+    /**
+     * Converts the current row to palette indices.
+     *
+     * @return false if the row has a color which doesn't fit into the palette anymore
+     */
+    private boolean toIndexRow() {
+        m_indexRow[0] = FILTER_NONE;
+        // most pixels have the same color as their left neighbor
+        int previousRgb = m_rgbRow[0];
+        int previousIndex = m_palette.indexOf(previousRgb);
+        for (int x = 0; x < m_width; x++) {
+            if (m_rgbRow[x] != previousRgb) {
+                previousRgb = m_rgbRow[x];
+                previousIndex = m_palette.indexOf(previousRgb);
+            }
+            if (previousIndex < 0) {
+                return false;
+            }
+            m_indexRow[x + 1] = (byte) previousIndex;
+        }
+        return true;
+    }
+
+    /**
+     * Filters a row with the sub filter and appends it to the image data.
+     *
+     * @param rgbRow
+     *            the colors of the row
+     * @throws IOException
+     *             if a block of rows can't be compressed
+     */
+    private void deflateTruecolorRow(final int[] rgbRow) throws IOException {
+        m_truecolorRow[0] = FILTER_SUB;
+        // the upper bits don't change the lower byte of the differences
+        int left = 0;
+        for (int x = 0, i = 1; x < m_width; x++, i += 3) {
+            final int rgb = rgbRow[x];
+            m_truecolorRow[i] = (byte) ((rgb >> 16) - (left >> 16));
+            m_truecolorRow[i + 1] = (byte) ((rgb >> 8) - (left >> 8));
+            m_truecolorRow[i + 2] = (byte) (rgb - left);
+            left = rgb;
+        }
+        deflate(m_truecolorRow);
+    }
+
+    /**
+     * Re-encodes the rows added so far as truecolor rows. They only contain palette colors, so they are converted
+     * exactly.
+     *
+     * @throws IOException
+     *             if a block of rows can't be compressed
+     */
+    private void switchToTruecolor() throws IOException {
+        while (!m_pendingBlocks.isEmpty()) {
+            writeOldestBlock();
+        }
+        final byte[] compressed = m_imageData.toByteArray();
+        final byte[] uncompressed = Arrays.copyOf(m_block, m_blockLength);
+
+        m_truecolor = true;
+        m_truecolorRow = new byte[m_width * 3 + 1];
+        m_imageData.reset();
+        m_imageData.write(0x78);
+        m_imageData.write(0x5E);
+        m_adler.reset();
+        m_block = new byte[BLOCK_SIZE];
+        m_blockLength = 0;
+        m_dictionary = null;
+
+        // the compressed blocks are followed by the rows of the current block
+        // which haven't been compressed yet
+        final byte[] indexRow = new byte[m_width + 1];
+        final int[] rgbRow = new int[m_width];
+        int length = 0;
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed, 2, compressed.length - 2);
+            int offset = 0;
+            while (true) {
+                if (length == indexRow.length) {
+                    m_palette.toRgbRow(indexRow, rgbRow);
+                    deflateTruecolorRow(rgbRow);
+                    length = 0;
+                }
+                int n = inflater.inflate(indexRow, length, indexRow.length - length);
+                if (n == 0) {
+                    if (!inflater.needsInput() && !inflater.finished()) {
+                        throw new IOException("Couldn't convert the image to truecolor, unexpected image data");
+                    }
+                    n = Math.min(indexRow.length - length, uncompressed.length - offset);
+                    if (n == 0) {
+                        break;
+                    }
+                    System.arraycopy(uncompressed, offset, indexRow, length, n);
+                    offset += n;
+                }
+                length += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Couldn't convert the image to truecolor", e);
+        } finally {
+            inflater.end();
+        }
+        if (length != 0) {
+            throw new IOException("Couldn't convert the image to truecolor, the last row is incomplete");
+        }
+    }
+
+    /**
+     * Writes the PNG file after all rows were added.
+     *
+     * @return the PNG file
+     * @throws IOException
+     *             if not all rows were added
+     */
+    byte[] finish() throws IOException {
+        if (m_rows != m_height) {
+            throw new IOException("Only " + m_rows + " of " + m_height + " rows were added to the image");
+        }
+        submitBlock(true);
+        while (!m_pendingBlocks.isEmpty()) {
+            writeOldestBlock();
+        }
+        final long adler = m_adler.getValue();
+        m_imageData.write((int) (adler >>> 24));
+        m_imageData.write((int) (adler >>> 16));
+        m_imageData.write((int) (adler >>> 8));
+        m_imageData.write((int) adler);
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream(m_imageData.size() + 1024);
+        DataOutputStream out = new DataOutputStream(png);
+        out.write(SIGNATURE);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        DataOutputStream headerOut = new DataOutputStream(header);
+        headerOut.writeInt(m_width);
+        headerOut.writeInt(m_height);
+        headerOut.writeByte(8); // bit depth
+        headerOut.writeByte(m_truecolor ? COLOR_TYPE_TRUECOLOR : COLOR_TYPE_PALETTE);
+        headerOut.writeByte(0); // compression method
+        headerOut.writeByte(0); // filter method
+        headerOut.writeByte(0); // no interlace
+        writeChunk(out, "IHDR", header.toByteArray());
+
+        if (!m_truecolor) {
+            writeChunk(out, "PLTE", m_palette.toByteArray());
+        }
+        writeChunk(out, "IDAT", m_imageData.toByteArray());
+        writeChunk(out, "IEND", new byte[0]);
+        out.flush();
+        return png.toByteArray();
+    }
+
+    private void deflate(final byte[] data) throws IOException {
+        m_adler.update(data);
+        int offset = 0;
+        while (offset < data.length) {
+            final int length = Math.min(data.length - offset, BLOCK_SIZE - m_blockLength);
+            System.arraycopy(data, offset, m_block, m_blockLength, length);
+            m_blockLength += length;
+            offset += length;
+            if (m_blockLength == BLOCK_SIZE) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    /**
+     * Hands the current block to the deflate pool and starts a new one.
+     *
+     * @param last
+     *            true if this is the last block of the image
+     * @throws IOException
+     *             if an earlier block couldn't be compressed
+     */
+    private void submitBlock(final boolean last) throws IOException {
+        final byte[] block = m_block;
+        final int length = m_blockLength;
+        final byte[] dictionary = m_dictionary;
+        m_pendingBlocks.add(WorkerPool.POOL.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return deflateBlock(block, length, dictionary, last);
+            }
+        }));
+
+        if (length >= DICTIONARY_SIZE) {
+            m_dictionary = Arrays.copyOfRange(block, length - DICTIONARY_SIZE, length);
+        }
+        m_block = new byte[BLOCK_SIZE];
+        m_blockLength = 0;
+
+        // limit the memory used by blocks waiting for compression
+        while (m_pendingBlocks.size() > MAX_PENDING_BLOCKS) {
+            writeOldestBlock();
+        }
+    }
+
+    private void writeOldestBlock() throws IOException {
+        try {
+            m_imageData.write(m_pendingBlocks.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing the image", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Couldn't compress the image", e.getCause());
+        }
+    }
+
+    /**
+     * Compresses a block to raw deflate data.
+     *
+     * @param block
+     *            the uncompressed data
+     * @param length
+     *            the number of bytes in the block
+     * @param dictionary
+     *            the end of the previous block or null for the first block
+     * @param last
+     *            true if this is the last block, it is finished instead of flushed
+     * @return the compressed block
+     */
+    private static byte[] deflateBlock(final byte[] block, final int length, final byte[] dictionary,
+            final boolean last) {
+        final Deflater deflater = new Deflater(DEFLATE_LEVEL, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(block, 0, length);
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(length / 4 + 64);
+            final byte[] buffer = new byte[1 << 16];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    final int n = deflater.deflate(buffer);
+                    out.write(buffer, 0, n);
+                }
+            } else {
+                // the sync flush aligns the block to a byte boundary, so the
+                // next block can be appended directly
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeChunk(final DataOutputStream out, final String type, final byte[] data)
+            throws IOException {
+        byte[] typeBytes = type.getBytes("US-ASCII");
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        out.writeInt(data.length);
+        out.write(typeBytes);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Palette with at most 256 colors. The index of every color in the palette is cached in an open addressing hash
+     * table.
+     */
+    private static final class Palette {
+
+        private static final int MAX_COLORS = 256;
+
+        private final int[] m_colors = new int[MAX_COLORS];
+        private int m_size;
+
+        // keys are the rgb values with an additional marker bit, 0 means
+        // empty. The table holds at most MAX_COLORS entries, so it is never
+        // more than a quarter full
+        private final int[] m_keys = new int[MAX_COLORS * 4];
+        private final int[] m_values = new int[MAX_COLORS * 4];
+
+        Palette() {
+            indexOf(Color.white.getRGB());
+            indexOf(Color.black.getRGB());
+            for (int pointClass = 1; pointClass <= 54; pointClass++) {
+                indexOf(CoordinatePanelRenderer.getColor(pointClass).getRGB());
+            }
+        }
+
+        /**
+         * @param argb
+         *            a color, the alpha value is ignored
+         * @return the index of the color in the palette, the color is added if it isn't in the palette yet, or -1 if
+         *         the palette is full
+         */
+        int indexOf(final int argb) {
+            final int key = (argb & 0xFFFFFF) | 0x1000000;
+            final int mask = m_keys.length - 1;
+            int slot = hash(key) & mask;
+            while (m_keys[slot] != 0) {
+                if (m_keys[slot] == key) {
+                    return m_values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            if (m_size == MAX_COLORS) {
+                return -1;
+            }
+            final int index = m_size;
+            m_colors[m_size++] = argb & 0xFFFFFF;
+            m_keys[slot] = key;
+            m_values[slot] = index;
+            return index;
+        }
+
+        /**
+         * Converts a row of palette indices, starting with the filter type, back to colors.
+         */
+        void toRgbRow(final byte[] indexRow, final int[] rgbRow) {
+            for (int x = 0; x < rgbRow.length; x++) {
+                rgbRow[x] = m_colors[indexRow[x + 1] & 0xFF];
+            }
+        }
+
+        byte[] toByteArray() {
+            byte[] plte = new byte[m_size * 3];
+            for (int i = 0; i < m_size; i++) {
+                plte[i * 3] = (byte) (m_colors[i] >> 16);
+                plte[i * 3 + 1] = (byte) (m_colors[i] >> 8);
+                plte[i * 3 + 2] = (byte) m_colors[i];
+            }
+            return plte;
+        }
+
+        private static int hash(final int key) {
+            final int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.util.Arrays;
+
+/**
+ * Compact, versioned binary encoding of the points of a coordinate panel for the node settings.
+ * <p>
+ * The encoding starts with the version, a flags byte and the number of points. If all coordinates are multiples of
+ * the same decimal quantum (e.g. points snapped to the grid or typed with a few decimal places), the coordinates are
+ * stored as integral multiples of the quantum, delta encoded against the previous point and written as zigzag
+ * varints. Otherwise the coordinates are written as 8 byte doubles. The x coordinates are followed by the y
+ * coordinates and one byte per point for the classes. Decoding always reproduces the exact coordinates, only a
+ * negative zero is decoded as positive zero.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class PointCodec {
+
+    /** The current version of the encoding. */
+    static final int VERSION = 2;
+
+    private static final int FLAG_QUANTIZED = 1;
+
+    // the quantum of quantized coordinates is 10^-scale, the scale is stored in
+    // the upper bits of the flags
+    private static final int SCALE_SHIFT = 4;
+    private static final int MAX_SCALE = 6;
+
+    // coordinates above this value can't be quantized, as their multiples
+    // wouldn't be exact anymore
+    private static final double MAX_QUANTIZED = 1L << 52;
+
+    private static final int MAX_VARINT_LENGTH = 10;
+
+    // some VMs reserve header words in arrays
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private byte[] m_buffer;
+    private int m_position;
+
+    private PointCodec(final byte[] buffer) {
+        m_buffer = buffer;
+        m_position = 0;
+    }
+
+    /**
+     * Encodes the points.
+     *
+     * @param points
+     *            the points to encode
+     * @return the encoded points
+     */
+    static byte[] encode(final PointStore points) {
+        int size = points.size();
+        int scale = findScale(points);
+        boolean quantized = scale >= 0;
+
+        // one byte per quantized coordinate covers points close to each other,
+        // the buffer grows if the deltas are larger
+        long expectedLength = 2 + MAX_VARINT_LENGTH + (long) size * (quantized ? 3 : 17);
+        PointCodec out = new PointCodec(new byte[(int) Math.min(expectedLength, MAX_ARRAY_LENGTH)]);
+        out.writeByte(VERSION);
+        out.writeByte(quantized ? FLAG_QUANTIZED | (scale << SCALE_SHIFT) : 0);
+        out.writeVarint(size);
+
+        if (quantized) {
+            double factor = Math.pow(10, scale);
+            long previous = 0;
+            for (int i = 0; i < size; i++) {
+                long value = (long) Math.rint(points.getX(i) * factor);
+                out.writeVarint(zigzag(value - previous));
+                previous = value;
+            }
+            previous = 0;
+            for (int i = 0; i < size; i++) {
+                long value = (long) Math.rint(points.getY(i) * factor);
+                out.writeVarint(zigzag(value - previous));
+                previous = value;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                out.writeLong(Double.doubleToLongBits(points.getX(i)));
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeLong(Double.doubleToLongBits(points.getY(i)));
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            out.writeByte(points.getPointClass(i));
+        }
+        return Arrays.copyOf(out.m_buffer, out.m_position);
+    }
+
+    /**
+     * Decodes points encoded by {@link #encode(PointStore)}.
+     *
+     * @param data
+     *            the encoded points
+     * @return the decoded points
+     * @throws IllegalArgumentException
+     *             if the data isn't a valid encoding or has an unknown version
+     */
+    static PointStore decode(final byte[] data) {
+        PointCodec in = new PointCodec(data);
+        try {
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported version " + version + " of the point data");
+            }
+            int flags = in.readByte();
+            long size = in.readVarint();
+            // every point takes at least three bytes
+            if (size < 0 || size > (data.length - in.m_position) / 3) {
+                throw new IllegalArgumentException("Invalid number of points: " + size);
+            }
+
+            int n = (int) size;
+            double[] x = new double[n];
+            double[] y = new double[n];
+            if ((flags & FLAG_QUANTIZED) != 0) {
+                double factor = Math.pow(10, flags >>> SCALE_SHIFT);
+                long value = 0;
+                for (int i = 0; i < n; i++) {
+                    value += unzigzag(in.readVarint());
+                    x[i] = value / factor;
+                }
+                value = 0;
+                for (int i = 0; i < n; i++) {
+                    value += unzigzag(in.readVarint());
+                    y[i] = value / factor;
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    x[i] = Double.longBitsToDouble(in.readLong());
+                }
+                for (int i = 0; i < n; i++) {
+                    y[i] = Double.longBitsToDouble(in.readLong());
+                }
+            }
+
+            if (data.length - in.m_position != n) {
+                throw new IllegalArgumentException("Point data has an invalid length");
+            }
+            byte[] classes = Arrays.copyOfRange(data, in.m_position, data.length);
+            return PointStore.wrap(x, y, classes);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Point data is truncated", e);
+        }
+    }
+
+    /**
+     * Finds the smallest scale for which all coordinates are exact multiples of 10^-scale.
+     *
+     * @return the scale or -1 if the coordinates can't be quantized
+     */
+    private static int findScale(final PointStore points) {
+        int scale = 0;
+        double factor = 1;
+        for (int i = 0; i < points.size(); i++) {
+            while (!isMultiple(points.getX(i), factor) || !isMultiple(points.getY(i), factor)) {
+                if (scale == MAX_SCALE) {
+                    return -1;
+                }
+                scale++;
+                factor *= 10;
+            }
+        }
+        return scale;
+    }
+
+    private static boolean isMultiple(final double value, final double factor) {
+        // -0.0 is quantized as 0.0, e.g. points snapped to an axis may have a
+        // negative zero, the sign doesn't matter for a coordinate
+        if (value == 0) {
+            return true;
+        }
+        double scaled = Math.rint(value * factor);
+        // compare the bits, so that NaN isn't quantized
+        return Math.abs(scaled) < MAX_QUANTIZED
+                && Double.doubleToLongBits(scaled / factor) == Double.doubleToLongBits(value);
+    }
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private void ensureCapacity(final int bytes) {
+        if (m_buffer.length - m_position >= bytes) {
+            return;
+        }
+        long required = (long) m_position + bytes;
+        if (required > MAX_ARRAY_LENGTH) {
+            throw new IllegalStateException("Too many points to encode");
+        }
+        long grown = Math.min(MAX_ARRAY_LENGTH, Math.max(required, 2L * m_buffer.length));
+        m_buffer = Arrays.copyOf(m_buffer, (int) grown);
+    }
+
+    private void writeByte(final int value) {
+        ensureCapacity(1);
+        m_buffer[m_position++] = (byte) value;
+    }
+
+    private void writeLong(final long value) {
+        ensureCapacity(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            m_buffer[m_position++] = (byte) (value >>> shift);
+        }
+    }
+
+    private void writeVarint(final long value) {
+        ensureCapacity(MAX_VARINT_LENGTH);
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            m_buffer[m_position++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        m_buffer[m_position++] = (byte) v;
+    }
+
+    private int readByte() {
+        return m_buffer[m_position++] & 0xFF;
+    }
+
+    private long readLong() {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (m_buffer[m_position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = m_buffer[m_position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in the point data");
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.util.Arrays;
+
+/**
+ * Hash grid over the points of a {@link PointStore} used to find duplicates in constant time. Two points are
+ * duplicates if they have the same class and their distance is at most {@link PointStore#EPSILON}. The plane is
+ * divided into square cells twice as wide as the tolerance, so all duplicates of a point lie in the cell of the point
+ * or one of its eight neighbours. Cells are hashed into a table of chains, only the cells which contain points use
+ * memory. Points must not be removed from the store while it is hashed.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class PointDeduplicator {
+
+    // twice the tolerance, so rounding errors can't move a duplicate two cells away
+    private static final double CELL_SIZE = 2 * PointStore.EPSILON;
+
+    private final PointStore m_points;
+
+    // first point of each chain and the next point of the same chain for each
+    // point, -1 marks the end of a chain
+    private int[] m_heads;
+    private int[] m_next;
+    private int m_mask;
+    private int m_size;
+
+    /**
+     * Creates a deduplicator and adds all points which are already in the given store.
+     *
+     * @param points
+     *            the store whose points are hashed, points appended to it later are hashed by {@link #update()}
+     * @param expectedSize
+     *            the expected number of points in the store, used to size the table
+     */
+    PointDeduplicator(final PointStore points, final int expectedSize) {
+        m_points = points;
+        int capacity = Integer.highestOneBit(Math.max(16, Math.max(expectedSize, points.size())) - 1) << 1;
+        m_heads = new int[capacity];
+        Arrays.fill(m_heads, -1);
+        m_next = new int[capacity];
+        m_mask = capacity - 1;
+        update();
+    }
+
+    /**
+     * Hashes the points which were appended to the store since the last call.
+     */
+    void update() {
+        while (m_size < m_points.size()) {
+            if (m_size == m_next.length) {
+                m_next = Arrays.copyOf(m_next, m_size * 2);
+            }
+            if (m_size == m_heads.length) {
+                rehash(m_heads.length * 2);
+            }
+            link(m_size);
+            m_size++;
+        }
+    }
+
+    /**
+     * Searches for a duplicate of the given point among the hashed points.
+     *
+     * @param x
+     *            the x coordinate
+     * @param y
+     *            the y coordinate
+     * @param pointClass
+     *            the class of the point
+     * @return the index of a matching point or -1 if there is none
+     */
+    int indexOf(final double x, final double y, final int pointClass) {
+        long cx = cell(x);
+        long cy = cell(y);
+        for (long ny = cy - 1; ny <= cy + 1; ny++) {
+            for (long nx = cx - 1; nx <= cx + 1; nx++) {
+                // chains may also contain points of other cells, the distance
+                // check sorts them out
+                for (int i = m_heads[bucket(nx, ny)]; i >= 0; i = m_next[i]) {
+                    if (m_points.getPointClass(i) != pointClass) {
+                        continue;
+                    }
+                    double dx = m_points.getX(i) - x;
+                    double dy = m_points.getY(i) - y;
+                    if (dx * dx + dy * dy <= PointStore.EPSILON * PointStore.EPSILON) {
+                        return i;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void rehash(final int capacity) {
+        m_heads = new int[capacity];
+        Arrays.fill(m_heads, -1);
+        m_mask = capacity - 1;
+        for (int i = 0; i < m_size; i++) {
+            link(i);
+        }
+    }
+
+    private void link(final int index) {
+        int bucket = bucket(cell(m_points.getX(index)), cell(m_points.getY(index)));
+        m_next[index] = m_heads[bucket];
+        m_heads[bucket] = index;
+    }
+
+    private int bucket(final long cx, final long cy) {
+        long h = cx * 0x9E3779B97F4A7C15L + cy;
+        h = (h ^ (h >>> 32)) * 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32)) & m_mask;
+    }
+
+    private static long cell(final double value) {
+        // the cast saturates for huge values and maps NaN to 0
+        return (long) Math.floor(value / CELL_SIZE);
+    }
+}
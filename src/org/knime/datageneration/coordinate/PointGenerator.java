@@ -0,0 +1,376 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Samples labelled points from parametric shapes within the ranges of the axes.
+ * <p>
+ * The points are sampled in chunks of a fixed size, each chunk with its own random stream derived from the seed and
+ * the chunk index. Chunks are sampled in parallel on the worker pool, yet the result only depends on the settings and
+ * not on the number of threads. A preview with the first points of the full result can be sampled cheaply.
+ * <p>
+ * The clicked points of the coordinate panel are the anchors of the shapes: for Gaussian blobs every anchor is the
+ * center of a blob of its class, for the other shapes the centroid of the anchors is the center of the shape.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class PointGenerator {
+
+    /**
+     * The shapes points can be sampled from.
+     */
+    enum Shape {
+        /** A Gaussian blob around every anchor, or around evenly spaced centers if there are no anchors. */
+        BLOBS("Gaussian blobs"),
+        /** Two interleaving half circles, always two classes. */
+        MOONS("Two moons"),
+        /** One ring per class. */
+        CIRCLES("Concentric circles"),
+        /** One spiral arm per class. */
+        SPIRALS("Interleaved spirals"),
+        /** Uniformly distributed points with random classes. */
+        UNIFORM("Uniform noise");
+
+        private final String m_label;
+
+        private Shape(final String label) {
+            m_label = label;
+        }
+
+        @Override
+        public String toString() {
+            return m_label;
+        }
+    }
+
+    /** The maximum number of points which can be generated. */
+    static final int MAX_POINTS = 10000000;
+
+    // number of points sampled from one random stream
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    // part of the axis ranges covered by the shapes
+    private static final double EXTENT = 0.8;
+
+    private static final double SPIRAL_TURNS = 1.5;
+
+    private final Shape m_shape;
+    private final int m_numberOfPoints;
+    private final int m_numberOfClasses;
+    private final double m_noise;
+    private final long m_seed;
+
+    /**
+     * @param shape
+     *            the shape to sample from
+     * @param numberOfPoints
+     *            the number of points to sample
+     * @param numberOfClasses
+     *            the number of classes (1-54), ignored by the moons and by blobs around anchors
+     * @param noise
+     *            standard deviation of the noise added to the points, relative to half the axis range
+     * @param seed
+     *            the seed of the random streams
+     */
+    PointGenerator(final Shape shape, final int numberOfPoints, final int numberOfClasses, final double noise,
+            final long seed) {
+        m_shape = shape;
+        m_numberOfPoints = numberOfPoints;
+        m_numberOfClasses = Math.max(1, Math.min(54, numberOfClasses));
+        m_noise = noise;
+        m_seed = seed;
+    }
+
+    /**
+     * Samples all points, the chunks are sampled in parallel.
+     *
+     * @param anchors
+     *            the anchors of the shape
+     * @param ranges
+     *            the renderer whose axis ranges contain the shape
+     * @param exec
+     *            the execution monitor for progress and cancellation
+     * @return the sampled points
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
+     * @throws InterruptedException
+     *             if the thread was interrupted while waiting for a chunk
+     */
+    PointStore generate(final PointStore anchors, final CoordinatePanelRenderer ranges, final ExecutionMonitor exec)
+            throws CanceledExecutionException, InterruptedException {
+        final Sampler sampler = new Sampler(anchors, ranges);
+        final double[] x = new double[m_numberOfPoints];
+        final double[] y = new double[m_numberOfPoints];
+        final byte[] classes = new byte[m_numberOfPoints];
+
+        final int numberOfChunks = (int) (((long) m_numberOfPoints + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        final int maxPending = WorkerPool.getMaxPendingTasks();
+        final Deque<Future<Void>> pendingChunks = new ArrayDeque<Future<Void>>(maxPending);
+        int nextChunk = 0;
+        int sampledChunks = 0;
+        try {
+            while (sampledChunks < numberOfChunks) {
+                while (nextChunk < numberOfChunks && pendingChunks.size() < maxPending) {
+                    final int chunk = nextChunk++;
+                    pendingChunks.add(WorkerPool.POOL.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            sampleChunk(sampler, chunk, x, y, classes);
+                            return null;
+                        }
+                    }));
+                }
+
+                waitFor(pendingChunks.removeFirst());
+                sampledChunks++;
+
+                exec.checkCanceled();
+                exec.setProgress(sampledChunks / (double) numberOfChunks, "Sampled " + Math.min(m_numberOfPoints,
+                        (long) sampledChunks * CHUNK_SIZE) + " of " + m_numberOfPoints + " points");
+            }
+        } finally {
+            // only non-empty if the execution was canceled or has failed
+            for (Future<Void> chunk : pendingChunks) {
+                chunk.cancel(false);
+            }
+        }
+        return PointStore.wrap(x, y, classes);
+    }
+
+    /**
+     * Samples the first points of the result of {@link #generate(PointStore, CoordinatePanelRenderer,
+     * ExecutionMonitor)} on the calling thread.
+     *
+     * @param anchors
+     *            the anchors of the shape
+     * @param ranges
+     *            the renderer whose axis ranges contain the shape
+     * @param limit
+     *            the maximum number of points to sample
+     * @return the sampled points
+     */
+    PointStore preview(final PointStore anchors, final CoordinatePanelRenderer ranges, final int limit) {
+        final Sampler sampler = new Sampler(anchors, ranges);
+        final int size = Math.min(limit, m_numberOfPoints);
+        final double[] x = new double[size];
+        final double[] y = new double[size];
+        final byte[] classes = new byte[size];
+        for (int chunk = 0; chunk * CHUNK_SIZE < size; chunk++) {
+            sampleChunk(sampler, chunk, x, y, classes);
+        }
+        return PointStore.wrap(x, y, classes);
+    }
+
+    private static void waitFor(final Future<Void> chunk) throws InterruptedException {
+        try {
+            chunk.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Couldn't sample the points", cause);
+        }
+    }
+
+    /**
+     * Samples the points of one chunk into the given arrays, the chunk may be cut off at the end of the arrays.
+     */
+    private void sampleChunk(final Sampler sampler, final int chunk, final double[] x, final double[] y,
+            final byte[] classes) {
+        final SplitMix64 random = SplitMix64.stream(m_seed, chunk);
+        final int end = (int) Math.min(x.length, (chunk + 1L) * CHUNK_SIZE);
+        final double[] point = new double[2];
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            classes[i] = (byte) sampler.sample(random, point);
+            x[i] = point[0];
+            y[i] = point[1];
+        }
+    }
+
+    /**
+     * Samples single points, holds the anchors and the mapping from the unit square to the axis ranges.
+     */
+    private final class Sampler {
+
+        private final double m_centerX;
+        private final double m_centerY;
+        private final double m_radiusX;
+        private final double m_radiusY;
+        private final double m_minX;
+        private final double m_minY;
+        private final double m_rangeX;
+        private final double m_rangeY;
+
+        // the centers of the blobs in coordinates and their classes
+        private final double[] m_blobX;
+        private final double[] m_blobY;
+        private final int[] m_blobClasses;
+
+        Sampler(final PointStore anchors, final CoordinatePanelRenderer ranges) {
+            m_minX = ranges.getMinX();
+            m_minY = ranges.getMinY();
+            m_rangeX = ranges.getMaxX() - ranges.getMinX();
+            m_rangeY = ranges.getMaxY() - ranges.getMinY();
+            m_radiusX = EXTENT * m_rangeX / 2;
+            m_radiusY = EXTENT * m_rangeY / 2;
+
+            if (anchors.isEmpty()) {
+                m_centerX = m_minX + m_rangeX / 2;
+                m_centerY = m_minY + m_rangeY / 2;
+            } else {
+                double sumX = 0;
+                double sumY = 0;
+                for (int i = 0; i < anchors.size(); i++) {
+                    sumX += anchors.getX(i);
+                    sumY += anchors.getY(i);
+                }
+                m_centerX = sumX / anchors.size();
+                m_centerY = sumY / anchors.size();
+            }
+
+            if (anchors.isEmpty()) {
+                // evenly spaced on a circle around the center
+                m_blobX = new double[m_numberOfClasses];
+                m_blobY = new double[m_numberOfClasses];
+                m_blobClasses = new int[m_numberOfClasses];
+                for (int i = 0; i < m_numberOfClasses; i++) {
+                    double angle = 2 * Math.PI * i / m_numberOfClasses;
+                    double distance = m_numberOfClasses == 1 ? 0 : 0.6;
+                    m_blobX[i] = m_centerX + distance * Math.cos(angle) * m_radiusX;
+                    m_blobY[i] = m_centerY + distance * Math.sin(angle) * m_radiusY;
+                    m_blobClasses[i] = i + 1;
+                }
+            } else {
+                m_blobX = new double[anchors.size()];
+                m_blobY = new double[anchors.size()];
+                m_blobClasses = new int[anchors.size()];
+                for (int i = 0; i < anchors.size(); i++) {
+                    m_blobX[i] = anchors.getX(i);
+                    m_blobY[i] = anchors.getY(i);
+                    m_blobClasses[i] = anchors.getPointClass(i);
+                }
+            }
+        }
+
+        /**
+         * Samples a point.
+         *
+         * @param random
+         *            the random stream
+         * @param point
+         *            receives the x and y coordinate of the point
+         * @return the class of the point
+         */
+        int sample(final SplitMix64 random, final double[] point) {
+            double u;
+            double v;
+            int pointClass;
+            switch (m_shape) {
+                case BLOBS:
+                    int blob = random.nextInt(m_blobX.length);
+                    // the noise is the standard deviation of the blobs, they
+                    // aren't mapped to the unit square
+                    point[0] = m_blobX[blob] + random.nextGaussian() * m_noise * m_radiusX;
+                    point[1] = m_blobY[blob] + random.nextGaussian() * m_noise * m_radiusY;
+                    return m_blobClasses[blob];
+                case MOONS:
+                    double t = Math.PI * random.nextDouble();
+                    pointClass = 1 + random.nextInt(2);
+                    if (pointClass == 1) {
+                        u = Math.cos(t) - 0.5;
+                        v = Math.sin(t) - 0.25;
+                    } else {
+                        u = 0.5 - Math.cos(t);
+                        v = 0.25 - Math.sin(t);
+                    }
+                    // the moons span 3 x 1.5 units
+                    u /= 1.5;
+                    v /= 1.5;
+                    break;
+                case CIRCLES:
+                    int ring = random.nextInt(m_numberOfClasses);
+                    double angle = 2 * Math.PI * random.nextDouble();
+                    double radius = (ring + 1) / (double) m_numberOfClasses;
+                    u = radius * Math.cos(angle);
+                    v = radius * Math.sin(angle);
+                    pointClass = ring + 1;
+                    break;
+                case SPIRALS:
+                    int arm = random.nextInt(m_numberOfClasses);
+                    double s = random.nextDouble();
+                    double phi = 2 * Math.PI * (SPIRAL_TURNS * s + arm / (double) m_numberOfClasses);
+                    u = s * Math.cos(phi);
+                    v = s * Math.sin(phi);
+                    pointClass = arm + 1;
+                    break;
+                default:
+                    // uniform noise covers the whole ranges
+                    point[0] = m_minX + random.nextDouble() * m_rangeX;
+                    point[1] = m_minY + random.nextDouble() * m_rangeY;
+                    return 1 + random.nextInt(m_numberOfClasses);
+            }
+
+            point[0] = m_centerX + (u + random.nextGaussian() * m_noise) * m_radiusX;
+            point[1] = m_centerY + (v + random.nextGaussian() * m_noise) * m_radiusY;
+            return pointClass;
+        }
+    }
+}
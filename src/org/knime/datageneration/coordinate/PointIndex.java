@@ -0,0 +1,378 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.util.Arrays;
+
+/**
+ * Grid over the coordinate range of a panel which maps each cell to the indices of the points of a {@link PointStore}
+ * lying inside it. Points outside of the range are kept in the border cells. A cell holding more than a few points is
+ * split into a finer grid of its own, so dense clusters are subdivided as far as needed and looking up the points
+ * near a position, even deeply zoomed into a cluster, only has to visit a few small cells instead of all points. The
+ * index is updated incrementally whenever a point is added or removed.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class PointIndex {
+
+    private static final int DEFAULT_CELLS = 128;
+
+    // a cell holding more points is split into a grid of SUB_CELLS x
+    // SUB_CELLS cells
+    private static final int MAX_CELL_SIZE = 64;
+    private static final int SUB_CELLS = 8;
+
+    // limits the splitting of cells with many points at the same position
+    private static final int MAX_DEPTH = 6;
+
+    private final int m_cellsX;
+    private final int m_cellsY;
+    private final int m_depth;
+
+    // the indices of the points of each cell which isn't split, and the
+    // number of points of each cell including the points of its sub grid
+    private final int[][] m_cells;
+    private final int[] m_cellSizes;
+
+    // the sub grids of the split cells, null until a cell is split
+    private PointIndex[] m_subGrids;
+
+    private PointStore m_points;
+
+    private double m_minX;
+    private double m_minY;
+    private double m_scaleX;
+    private double m_scaleY;
+
+    /**
+     * Creates an index with the default number of cells per axis.
+     */
+    PointIndex() {
+        this(DEFAULT_CELLS, DEFAULT_CELLS);
+    }
+
+    /**
+     * Creates an index.
+     *
+     * @param cellsX
+     *            the number of cells along the x axis
+     * @param cellsY
+     *            the number of cells along the y axis
+     */
+    PointIndex(final int cellsX, final int cellsY) {
+        this(cellsX, cellsY, 0);
+    }
+
+    private PointIndex(final int cellsX, final int cellsY, final int depth) {
+        m_cellsX = cellsX;
+        m_cellsY = cellsY;
+        m_depth = depth;
+        m_cells = new int[cellsX * cellsY][];
+        m_cellSizes = new int[cellsX * cellsY];
+    }
+
+    /**
+     * Sets the range covered by the grid and re-indexes all given points.
+     *
+     * @param minX
+     *            the minimum x value
+     * @param maxX
+     *            the maximum x value
+     * @param minY
+     *            the minimum y value
+     * @param maxY
+     *            the maximum y value
+     * @param points
+     *            the points to index, later added points have to be added to this store
+     */
+    void rebuild(final double minX, final double maxX, final double minY, final double maxY,
+            final PointStore points) {
+        setRange(minX, maxX, minY, maxY, points);
+        clear();
+        for (int i = 0; i < points.size(); i++) {
+            add(i, points.getX(i), points.getY(i));
+        }
+    }
+
+    private void setRange(final double minX, final double maxX, final double minY, final double maxY,
+            final PointStore points) {
+        m_points = points;
+        m_minX = minX;
+        m_minY = minY;
+        m_scaleX = maxX > minX ? m_cellsX / (maxX - minX) : 0;
+        m_scaleY = maxY > minY ? m_cellsY / (maxY - minY) : 0;
+    }
+
+    /**
+     * Removes all points from the index.
+     */
+    void clear() {
+        Arrays.fill(m_cellSizes, 0);
+        m_subGrids = null;
+    }
+
+    /**
+     * Adds a point to the index.
+     *
+     * @param index
+     *            the index of the point in its point store
+     * @param x
+     *            the x coordinate of the point
+     * @param y
+     *            the y coordinate of the point
+     */
+    void add(final int index, final double x, final double y) {
+        int cell = cellOf(x, y);
+        int size = m_cellSizes[cell];
+        m_cellSizes[cell] = size + 1;
+        if (m_subGrids != null && m_subGrids[cell] != null) {
+            m_subGrids[cell].add(index, x, y);
+            return;
+        }
+
+        int[] entries = m_cells[cell];
+        if (entries == null) {
+            entries = new int[4];
+            m_cells[cell] = entries;
+        } else if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+            m_cells[cell] = entries;
+        }
+        entries[size] = index;
+
+        if (size + 1 > MAX_CELL_SIZE && m_depth < MAX_DEPTH && m_points != null && m_scaleX > 0 && m_scaleY > 0) {
+            split(cell);
+        }
+    }
+
+    /**
+     * Moves the points of a cell into a finer grid covering the cell.
+     */
+    private void split(final int cell) {
+        int cx = cell % m_cellsX;
+        int cy = cell / m_cellsX;
+        PointIndex subGrid = new PointIndex(SUB_CELLS, SUB_CELLS, m_depth + 1);
+        subGrid.setRange(m_minX + cx / m_scaleX, m_minX + (cx + 1) / m_scaleX, m_minY + cy / m_scaleY,
+                m_minY + (cy + 1) / m_scaleY, m_points);
+
+        int[] entries = m_cells[cell];
+        int size = m_cellSizes[cell];
+        for (int i = 0; i < size; i++) {
+            subGrid.add(entries[i], m_points.getX(entries[i]), m_points.getY(entries[i]));
+        }
+        if (m_subGrids == null) {
+            m_subGrids = new PointIndex[m_cells.length];
+        }
+        m_subGrids[cell] = subGrid;
+        m_cells[cell] = null;
+    }
+
+    /**
+     * Removes a point from the index.
+     *
+     * @param index
+     *            the index of the point in its point store
+     * @param x
+     *            the x coordinate of the point
+     * @param y
+     *            the y coordinate of the point
+     * @return true if the point was found and removed
+     */
+    boolean remove(final int index, final double x, final double y) {
+        int cell = cellOf(x, y);
+        int size = m_cellSizes[cell];
+        if (m_subGrids != null && m_subGrids[cell] != null) {
+            if (m_subGrids[cell].remove(index, x, y)) {
+                m_cellSizes[cell] = size - 1;
+                return true;
+            }
+            return false;
+        }
+
+        int[] entries = m_cells[cell];
+        for (int i = 0; i < size; i++) {
+            if (entries[i] == index) {
+                entries[i] = entries[size - 1];
+                m_cellSizes[cell] = size - 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Notifies the index that a point was removed from the point store and all following points moved one index
+     * down, see {@link PointStore#remove(int)}. The removed point itself has to be removed from the index before.
+     *
+     * @param removedIndex
+     *            the index of the removed point
+     */
+    void shift(final int removedIndex) {
+        for (int cell = 0; cell < m_cells.length; cell++) {
+            if (m_subGrids != null && m_subGrids[cell] != null) {
+                m_subGrids[cell].shift(removedIndex);
+                continue;
+            }
+            int[] entries = m_cells[cell];
+            int size = m_cellSizes[cell];
+            for (int i = 0; i < size; i++) {
+                if (entries[i] > removedIndex) {
+                    entries[i]--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches all points inside the given rectangle.
+     *
+     * @param points
+     *            the indexed points
+     * @param minX
+     *            the minimum x value of the rectangle
+     * @param maxX
+     *            the maximum x value of the rectangle
+     * @param minY
+     *            the minimum y value of the rectangle
+     * @param maxY
+     *            the maximum y value of the rectangle
+     * @return the indices of the points inside the rectangle in ascending order
+     */
+    int[] query(final PointStore points, final double minX, final double maxX, final double minY,
+            final double maxY) {
+        int[][] result = new int[][] {new int[16]};
+        int count = collect(points, minX, maxX, minY, maxY, result, 0);
+        int[] indices = Arrays.copyOf(result[0], count);
+        Arrays.sort(indices);
+        return indices;
+    }
+
+    /**
+     * Appends the indices of the points inside the rectangle to the array held by result, which is replaced if it
+     * has to grow.
+     *
+     * @return the number of indices in the array
+     */
+    private int collect(final PointStore points, final double minX, final double maxX, final double minY,
+            final double maxY, final int[][] result, final int count) {
+        int fromX = cellX(minX);
+        int toX = cellX(maxX);
+        int fromY = cellY(minY);
+        int toY = cellY(maxY);
+
+        int n = count;
+        for (int cy = fromY; cy <= toY; cy++) {
+            for (int cx = fromX; cx <= toX; cx++) {
+                int cell = cy * m_cellsX + cx;
+                if (m_subGrids != null && m_subGrids[cell] != null) {
+                    n = m_subGrids[cell].collect(points, minX, maxX, minY, maxY, result, n);
+                    continue;
+                }
+                int[] entries = m_cells[cell];
+                int size = m_cellSizes[cell];
+                for (int i = 0; i < size; i++) {
+                    int index = entries[i];
+                    double x = points.getX(index);
+                    double y = points.getY(index);
+                    if (x < minX || x > maxX || y < minY || y > maxY) {
+                        continue;
+                    }
+                    if (n == result[0].length) {
+                        result[0] = Arrays.copyOf(result[0], n * 2);
+                    }
+                    result[0][n++] = index;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * @return the number of cells along the x axis
+     */
+    int getCellsX() {
+        return m_cellsX;
+    }
+
+    /**
+     * @return the number of cells along the y axis
+     */
+    int getCellsY() {
+        return m_cellsY;
+    }
+
+    /**
+     * @param cx
+     *            the column of a cell, counted from the minimum x value
+     * @param cy
+     *            the row of a cell, counted from the minimum y value
+     * @return the number of points in the cell
+     */
+    int count(final int cx, final int cy) {
+        return m_cellSizes[cy * m_cellsX + cx];
+    }
+
+    private int cellOf(final double x, final double y) {
+        return cellY(y) * m_cellsX + cellX(x);
+    }
+
+    private int cellX(final double x) {
+        return clamp((int) Math.floor((x - m_minX) * m_scaleX), m_cellsX);
+    }
+
+    private int cellY(final double y) {
+        return clamp((int) Math.floor((y - m_minY) * m_scaleY), m_cellsY);
+    }
+
+    private static int clamp(final int cell, final int cells) {
+        if (cell < 0) {
+            return 0;
+        }
+        return cell >= cells ? cells - 1 : cell;
+    }
+}
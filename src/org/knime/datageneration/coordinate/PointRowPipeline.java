@@ -0,0 +1,208 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.streamable.RowOutput;
+
+/**
+ * Creates the rows of the point table. The rows are built in chunks on the worker pool, while the calling thread
+ * pushes the finished chunks to the output in their original order. The number of chunks in flight is bounded, so
+ * only a few chunks of rows are held in memory at any time. Progress and cancellation are checked once per chunk.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class PointRowPipeline {
+
+    // number of rows built by one task
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final String KEY_PREFIX = "Row ";
+
+    // the class cells are immutable, so one cell per class is enough
+    private static final IntCell[] CLASS_CELLS = new IntCell[128];
+
+    static {
+        for (int i = 0; i < CLASS_CELLS.length; i++) {
+            CLASS_CELLS[i] = new IntCell(i);
+        }
+    }
+
+    private PointRowPipeline() {
+        // utility class
+    }
+
+    /**
+     * Pushes one row per point to the output, the output isn't closed.
+     *
+     * @param points
+     *            the points
+     * @param output
+     *            the output of the point table
+     * @param exec
+     *            the execution monitor for progress and cancellation
+     * @throws InterruptedException
+     *             if the output was interrupted while waiting for downstream nodes
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
+     */
+    static void push(final PointStore points, final RowOutput output, final ExecutionMonitor exec)
+            throws InterruptedException, CanceledExecutionException {
+        final int size = points.size();
+        if (size <= CHUNK_SIZE) {
+            // not worth the hand over to the worker pool
+            pushRows(createRows(points, 0, size), output);
+            exec.setProgress(1);
+            return;
+        }
+
+        final int maxPending = WorkerPool.getMaxPendingTasks();
+        final Deque<Future<DataRow[]>> pendingChunks = new ArrayDeque<Future<DataRow[]>>(maxPending);
+        int nextChunkStart = 0;
+        int pushedRows = 0;
+        try {
+            while (pushedRows < size) {
+                while (nextChunkStart < size && pendingChunks.size() < maxPending) {
+                    final int start = nextChunkStart;
+                    final int end = Math.min(size, start + CHUNK_SIZE);
+                    pendingChunks.add(WorkerPool.POOL.submit(new Callable<DataRow[]>() {
+                        @Override
+                        public DataRow[] call() {
+                            return createRows(points, start, end);
+                        }
+                    }));
+                    nextChunkStart = end;
+                }
+
+                DataRow[] rows = getChunk(pendingChunks.removeFirst());
+                pushRows(rows, output);
+                pushedRows += rows.length;
+
+                exec.checkCanceled();
+                exec.setProgress(pushedRows / (double) size, "Added " + pushedRows + " of " + size + " rows");
+            }
+        } finally {
+            // only non-empty if the execution was canceled or has failed
+            for (Future<DataRow[]> chunk : pendingChunks) {
+                chunk.cancel(false);
+            }
+        }
+    }
+
+    private static DataRow[] getChunk(final Future<DataRow[]> chunk) throws InterruptedException {
+        try {
+            return chunk.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException("Couldn't create the rows of the point table", cause);
+        }
+    }
+
+    private static void pushRows(final DataRow[] rows, final RowOutput output) throws InterruptedException {
+        for (DataRow row : rows) {
+            output.push(row);
+        }
+    }
+
+    /**
+     * Creates the rows of the points in the given range.
+     *
+     * @param points
+     *            the points
+     * @param start
+     *            index of the first point (inclusive)
+     * @param end
+     *            index of the last point (exclusive)
+     * @return the rows
+     */
+    private static DataRow[] createRows(final PointStore points, final int start, final int end) {
+        DataRow[] rows = new DataRow[end - start];
+        // the prefix of the row keys stays in the builder, only the index is
+        // replaced for each row
+        StringBuilder key = new StringBuilder(KEY_PREFIX.length() + 10).append(KEY_PREFIX);
+        for (int i = start; i < end; i++) {
+            key.setLength(KEY_PREFIX.length());
+            key.append(i);
+
+            // the cells of the current row, the types of the cells must match
+            // the column spec of the point table
+            DataCell[] cells = new DataCell[3];
+            cells[0] = new DoubleCell(points.getX(i));
+            cells[1] = new DoubleCell(points.getY(i));
+            cells[2] = getClassCell(points.getPointClass(i));
+            rows[i - start] = new DefaultRow(new RowKey(key.toString()), cells);
+        }
+        return rows;
+    }
+
+    private static IntCell getClassCell(final int pointClass) {
+        if (pointClass >= 0 && pointClass < CLASS_CELLS.length) {
+            return CLASS_CELLS[pointClass];
+        }
+        return new IntCell(pointClass);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.util.Arrays;
+
+/**
+ * Growable, column oriented store for the points of a coordinate panel. The x and y coordinates are kept in two
+ * primitive double arrays and the class of each point in a byte array (classes range from 1 to 54), so no object is
+ * allocated per point.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class PointStore {
+
+    /** Two points are considered equal if their distance is below this value and they have the same class. */
+    static final double EPSILON = 0.001;
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private double[] m_x;
+    private double[] m_y;
+    private byte[] m_classes;
+    private int m_size;
+
+    // true if the backing arrays are shared with a snapshot, they are copied
+    // before the next modification
+    private boolean m_shared;
+
+    /**
+     * Creates an empty point store.
+     */
+    PointStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty point store.
+     *
+     * @param capacity
+     *            the initial number of points which can be stored without growing
+     */
+    PointStore(final int capacity) {
+        m_x = new double[capacity];
+        m_y = new double[capacity];
+        m_classes = new byte[capacity];
+        m_size = 0;
+    }
+
+    /**
+     * Creates a point store which uses the given coordinate arrays as its backing arrays.
+     *
+     * @param x
+     *            the x coordinates
+     * @param y
+     *            the y coordinates
+     * @param classes
+     *            the classes of the points (1-54)
+     * @return a point store containing the given points
+     */
+    static PointStore wrap(final double[] x, final double[] y, final int[] classes) {
+        int size = Math.min(x.length, Math.min(y.length, classes.length));
+        PointStore store = new PointStore(0);
+        store.m_x = x;
+        store.m_y = y;
+        store.m_classes = new byte[x.length];
+        for (int i = 0; i < size; i++) {
+            store.m_classes[i] = (byte) classes[i];
+        }
+        store.m_size = size;
+        return store;
+    }
+
+    /**
+     * Creates a point store which uses the given arrays as its backing arrays.
+     *
+     * @param x
+     *            the x coordinates
+     * @param y
+     *            the y coordinates
+     * @param classes
+     *            the classes of the points (1-54)
+     * @return a point store containing the given points
+     */
+    static PointStore wrap(final double[] x, final double[] y, final byte[] classes) {
+        PointStore store = new PointStore(0);
+        store.m_x = x;
+        store.m_y = y;
+        store.m_classes = classes;
+        store.m_size = Math.min(x.length, Math.min(y.length, classes.length));
+        return store;
+    }
+
+    /**
+     * Creates a snapshot of this store in constant time. The snapshot shares the backing arrays with this store until
+     * either of them is modified, the modified store copies the arrays first. So the snapshot can be read by another
+     * thread while this store is modified.
+     *
+     * @return a snapshot of the current points
+     */
+    PointStore snapshot() {
+        PointStore store = new PointStore(0);
+        store.m_x = m_x;
+        store.m_y = m_y;
+        store.m_classes = m_classes;
+        store.m_size = m_size;
+        store.m_shared = true;
+        m_shared = true;
+        return store;
+    }
+
+    /**
+     * @return the number of points in this store
+     */
+    int size() {
+        return m_size;
+    }
+
+    /**
+     * @return true if there are no points in this store
+     */
+    boolean isEmpty() {
+        return m_size == 0;
+    }
+
+    /**
+     * @param index
+     *            index of a point
+     * @return the x coordinate of the point
+     */
+    double getX(final int index) {
+        return m_x[index];
+    }
+
+    /**
+     * @param index
+     *            index of a point
+     * @return the y coordinate of the point
+     */
+    double getY(final int index) {
+        return m_y[index];
+    }
+
+    /**
+     * @param index
+     *            index of a point
+     * @return the class of the point (1-54)
+     */
+    int getPointClass(final int index) {
+        return m_classes[index];
+    }
+
+    /**
+     * Appends a point.
+     *
+     * @param x
+     *            the x coordinate
+     * @param y
+     *            the y coordinate
+     * @param pointClass
+     *            the class of the point (1-54)
+     */
+    void add(final double x, final double y, final int pointClass) {
+        if (m_size == m_x.length) {
+            grow(m_size + 1);
+        } else {
+            unshare();
+        }
+        m_x[m_size] = x;
+        m_y[m_size] = y;
+        m_classes[m_size] = (byte) pointClass;
+        m_size++;
+    }
+
+    /**
+     * Grows the backing arrays so that the given number of points can be stored without growing again.
+     *
+     * @param capacity
+     *            the number of points to make room for
+     */
+    void ensureCapacity(final int capacity) {
+        if (capacity > m_x.length) {
+            grow(capacity);
+        }
+    }
+
+    /**
+     * Appends all points of another store.
+     *
+     * @param points
+     *            the points to append
+     */
+    void addAll(final PointStore points) {
+        if (m_size + points.m_size > m_x.length) {
+            grow(m_size + points.m_size);
+        } else {
+            unshare();
+        }
+        System.arraycopy(points.m_x, 0, m_x, m_size, points.m_size);
+        System.arraycopy(points.m_y, 0, m_y, m_size, points.m_size);
+        System.arraycopy(points.m_classes, 0, m_classes, m_size, points.m_size);
+        m_size += points.m_size;
+    }
+
+    /**
+     * Removes the point at the given index. The following points move one index down, so the remaining points keep
+     * their order.
+     *
+     * @param index
+     *            index of the point to remove
+     */
+    void remove(final int index) {
+        if (index < 0 || index >= m_size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + m_size);
+        }
+        unshare();
+        int moved = m_size - index - 1;
+        System.arraycopy(m_x, index + 1, m_x, index, moved);
+        System.arraycopy(m_y, index + 1, m_y, index, moved);
+        System.arraycopy(m_classes, index + 1, m_classes, index, moved);
+        m_size--;
+    }
+
+    /**
+     * Removes all points.
+     */
+    void clear() {
+        if (m_shared) {
+            m_x = new double[0];
+            m_y = new double[0];
+            m_classes = new byte[0];
+            m_shared = false;
+        }
+        m_size = 0;
+    }
+
+    private void grow(final int minCapacity) {
+        int newCapacity = Math.max(minCapacity, m_x.length + (m_x.length >> 1));
+        newCapacity = Math.max(newCapacity, DEFAULT_CAPACITY);
+        m_x = Arrays.copyOf(m_x, newCapacity);
+        m_y = Arrays.copyOf(m_y, newCapacity);
+        m_classes = Arrays.copyOf(m_classes, newCapacity);
+        m_shared = false;
+    }
+
+    /**
+     * Copies the backing arrays if they are shared with a snapshot.
+     */
+    private void unshare() {
+        if (m_shared) {
+            m_x = m_x.clone();
+            m_y = m_y.clone();
+            m_classes = m_classes.clone();
+            m_shared = false;
+        }
+    }
+}
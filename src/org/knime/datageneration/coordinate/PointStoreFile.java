@@ -0,0 +1,246 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes the points of a coordinate panel as a compact binary file. The file consists of a header (magic
+ * number, version and number of points), the x coordinates, the y coordinates, the classes as one byte per point and a
+ * CRC32 checksum of the coordinates and classes. Files are read in chunks through a small heap buffer rather than a
+ * memory mapping, which would keep the file locked on some platforms until it is garbage collected.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class PointStoreFile {
+
+    /** Name of the points file in the internals directory of the node. */
+    static final String FILE_NAME = "points.bin";
+
+    private static final int MAGIC = 0x504E5453; // "PNTS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int TRAILER_SIZE = 8;
+    private static final int BYTES_PER_POINT = 17;
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private PointStoreFile() {
+        // utility class
+    }
+
+    /**
+     * Computes the checksum of the points, which is also stored at the end of a points file.
+     *
+     * @param points
+     *            the points
+     * @return the CRC32 checksum of the coordinates and classes
+     */
+    static long checksum(final PointStore points) {
+        CRC32 crc = new CRC32();
+        try {
+            writePayload(points, null, crc);
+        } catch (IOException e) {
+            // can't happen without a channel
+            throw new IllegalStateException(e);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the points to a file, an existing file is overwritten.
+     *
+     * @param file
+     *            the file to write to
+     * @param points
+     *            the points to write
+     * @throws IOException
+     *             if the file can't be written
+     */
+    static void write(final File file, final PointStore points) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(points.size());
+            header.flip();
+            writeFully(channel, header);
+
+            CRC32 crc = new CRC32();
+            writePayload(points, channel, crc);
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            trailer.putLong(crc.getValue());
+            trailer.flip();
+            writeFully(channel, trailer);
+        }
+    }
+
+    /**
+     * Reads the points from a file written by {@link #write(File, PointStore)}.
+     *
+     * @param file
+     *            the file to read from
+     * @return the points
+     * @throws IOException
+     *             if the file can't be read, has an unknown format or its checksum doesn't match
+     */
+    static PointStore read(final File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE + TRAILER_SIZE) {
+                throw new IOException("Points file " + file + " is truncated");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            buffer.limit(0);
+            fill(channel, buffer, HEADER_SIZE, file);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(file + " is not a points file");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of points file " + file);
+            }
+            int size = buffer.getInt();
+            if (size < 0 || fileSize != HEADER_SIZE + (long) size * BYTES_PER_POINT + TRAILER_SIZE) {
+                throw new IOException("Points file " + file + " is truncated");
+            }
+
+            double[] x = new double[size];
+            for (int i = 0; i < size; i++) {
+                fill(channel, buffer, 8, file);
+                x[i] = buffer.getDouble();
+            }
+            double[] y = new double[size];
+            for (int i = 0; i < size; i++) {
+                fill(channel, buffer, 8, file);
+                y[i] = buffer.getDouble();
+            }
+            byte[] classes = new byte[size];
+            for (int i = 0; i < size; i++) {
+                fill(channel, buffer, 1, file);
+                classes[i] = buffer.get();
+            }
+            fill(channel, buffer, TRAILER_SIZE, file);
+            long expectedChecksum = buffer.getLong();
+
+            PointStore points = PointStore.wrap(x, y, classes);
+            if (checksum(points) != expectedChecksum) {
+                throw new IOException("Checksum of points file " + file + " doesn't match, the file is corrupt");
+            }
+            return points;
+        }
+    }
+
+    /**
+     * Makes sure the buffer has at least the given number of bytes remaining, reading the next chunk of the channel
+     * if necessary.
+     */
+    private static void fill(final FileChannel channel, final ByteBuffer buffer, final int bytes, final File file)
+            throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // read until the buffer is full or the file ends
+        }
+        buffer.flip();
+        if (buffer.remaining() < bytes) {
+            throw new IOException("Points file " + file + " is truncated");
+        }
+    }
+
+    /**
+     * Serializes the coordinates and classes in chunks, updates the checksum with every chunk and writes it to the
+     * channel, if there is one.
+     */
+    private static void writePayload(final PointStore points, final FileChannel channel, final CRC32 crc)
+            throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+        int size = points.size();
+        for (int i = 0; i < size; i++) {
+            if (chunk.remaining() < 8) {
+                flushChunk(chunk, channel, crc);
+            }
+            chunk.putDouble(points.getX(i));
+        }
+        for (int i = 0; i < size; i++) {
+            if (chunk.remaining() < 8) {
+                flushChunk(chunk, channel, crc);
+            }
+            chunk.putDouble(points.getY(i));
+        }
+        for (int i = 0; i < size; i++) {
+            if (!chunk.hasRemaining()) {
+                flushChunk(chunk, channel, crc);
+            }
+            chunk.put((byte) points.getPointClass(i));
+        }
+        flushChunk(chunk, channel, crc);
+    }
+
+    private static void flushChunk(final ByteBuffer chunk, final FileChannel channel, final CRC32 crc)
+            throws IOException {
+        crc.update(chunk.array(), 0, chunk.position());
+        if (channel != null) {
+            chunk.flip();
+            writeFully(channel, chunk);
+        }
+        chunk.clear();
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.streamable.RowInput;
+
+/**
+ * Reads points from a table with two numeric coordinate columns and an integer class column. The table is read in a
+ * single pass directly into the primitive arrays of a point store. Rows with missing values or a class outside of
+ * 1-54 are skipped.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class PointTableReader {
+
+    // number of rows between two checks for cancellation
+    private static final int CHECK_INTERVAL = 1 << 16;
+
+    private static final int MAX_CLASS = 54;
+
+    private final int m_xIndex;
+    private final int m_yIndex;
+    private final int m_classIndex;
+
+    private int m_skippedRows;
+
+    /**
+     * @param spec
+     *            the spec of the table
+     * @param c
+     *            the configuration holding the selected columns
+     * @throws InvalidSettingsException
+     *             if a selected column doesn't exist or has an incompatible type
+     */
+    PointTableReader(final DataTableSpec spec, final CoordinatePanelNodeConfiguration c)
+            throws InvalidSettingsException {
+        m_xIndex = findColumn(spec, c.getInputXColumn(), DoubleValue.class, "x coordinate");
+        m_yIndex = findColumn(spec, c.getInputYColumn(), DoubleValue.class, "y coordinate");
+        m_classIndex = findColumn(spec, c.getInputClassColumn(), IntValue.class, "class");
+    }
+
+    /**
+     * Selects the first two numeric columns as coordinates and the first other integer column as class column, if
+     * the configuration has no columns selected yet.
+     *
+     * @param spec
+     *            the spec of the table
+     * @param c
+     *            the configuration
+     * @return true if columns were selected
+     */
+    static boolean guessColumns(final DataTableSpec spec, final CoordinatePanelNodeConfiguration c) {
+        if (c.getInputXColumn() != null && c.getInputYColumn() != null && c.getInputClassColumn() != null) {
+            return false;
+        }
+
+        String x = null;
+        String y = null;
+        String pointClass = null;
+        for (int i = 0; i < spec.getNumColumns(); i++) {
+            DataColumnSpec column = spec.getColumnSpec(i);
+            if (x == null && column.getType().isCompatible(DoubleValue.class)
+                    && !column.getType().isCompatible(IntValue.class)) {
+                x = column.getName();
+            } else if (y == null && column.getType().isCompatible(DoubleValue.class)
+                    && !column.getType().isCompatible(IntValue.class)) {
+                y = column.getName();
+            } else if (pointClass == null && column.getType().isCompatible(IntValue.class)) {
+                pointClass = column.getName();
+            }
+        }
+        c.setInputXColumn(x);
+        c.setInputYColumn(y);
+        c.setInputClassColumn(pointClass);
+        return true;
+    }
+
+    private static int findColumn(final DataTableSpec spec, final String name,
+            final Class<? extends org.knime.core.data.DataValue> valueClass, final String description)
+            throws InvalidSettingsException {
+        if (name == null) {
+            throw new InvalidSettingsException("No " + description + " column selected");
+        }
+        int index = spec.findColumnIndex(name);
+        if (index < 0) {
+            throw new InvalidSettingsException("The " + description + " column \"" + name
+                    + "\" doesn't exist in the input table");
+        }
+        if (!spec.getColumnSpec(index).getType().isCompatible(valueClass)) {
+            throw new InvalidSettingsException("The " + description + " column \"" + name + "\" isn't "
+                    + (valueClass == IntValue.class ? "an integer" : "a numeric") + " column");
+        }
+        return index;
+    }
+
+    /**
+     * Reads all rows of the input, the input isn't closed.
+     *
+     * @param input
+     *            the rows of the table
+     * @param sizeHint
+     *            the number of rows of the table or -1 if unknown
+     * @param exec
+     *            the execution monitor for progress and cancellation
+     * @return the points of the table
+     * @throws InterruptedException
+     *             if the input was interrupted while waiting for upstream nodes
+     * @throws CanceledExecutionException
+     *             if the execution was canceled
+     */
+    PointStore read(final RowInput input, final long sizeHint, final ExecutionMonitor exec)
+            throws InterruptedException, CanceledExecutionException {
+        PointStore points = sizeHint > 0 && sizeHint < Integer.MAX_VALUE ? new PointStore((int) sizeHint)
+                : new PointStore();
+        m_skippedRows = 0;
+
+        long rowIndex = 0;
+        DataRow row;
+        while ((row = input.poll()) != null) {
+            DataCell x = row.getCell(m_xIndex);
+            DataCell y = row.getCell(m_yIndex);
+            DataCell pointClass = row.getCell(m_classIndex);
+            if (x.isMissing() || y.isMissing() || pointClass.isMissing()) {
+                m_skippedRows++;
+            } else {
+                int classValue = ((IntValue) pointClass).getIntValue();
+                if (classValue < 1 || classValue > MAX_CLASS) {
+                    m_skippedRows++;
+                } else {
+                    points.add(((DoubleValue) x).getDoubleValue(), ((DoubleValue) y).getDoubleValue(), classValue);
+                }
+            }
+
+            if (++rowIndex % CHECK_INTERVAL == 0) {
+                exec.checkCanceled();
+                if (sizeHint > 0) {
+                    exec.setProgress(rowIndex / (double) sizeHint, "Read " + rowIndex + " rows");
+                } else {
+                    exec.setMessage("Read " + rowIndex + " rows");
+                }
+            }
+        }
+        return points;
+    }
+
+    /**
+     * @return the number of rows skipped by the last read because of missing values or invalid classes
+     */
+    int getSkippedRows() {
+        return m_skippedRows;
+    }
+}
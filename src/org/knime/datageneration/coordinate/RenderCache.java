@@ -0,0 +1,203 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Content addressed cache of encoded images of the coordinate panel in the KNIME temp directory. An image is stored
+ * in a file named after the content hash of the configuration it was created from, so re-executing a node with
+ * unchanged settings, and every copy of it, finds the image without rendering it again. Files are written to a
+ * temporary name and moved into place, so concurrent writers never expose a partial image. The total size is bounded,
+ * the least recently used images are deleted first.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class RenderCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(RenderCache.class);
+
+    /** System property with the maximum size of the cache in MiB, 0 disables the cache. */
+    static final String SIZE_PROPERTY = "knime.coordinatepanel.imagecache.mb";
+
+    private static final int DEFAULT_SIZE_MB = 256;
+
+    // part of every file name, increase it whenever the rendering changes so
+    // images of older versions are no longer found
+    private static final String VERSION = "v1";
+
+    private static final String DIRECTORY_NAME = "coordinate-panel-images";
+
+    private RenderCache() {
+        // utility class
+    }
+
+    /**
+     * Looks up an image.
+     *
+     * @param hash
+     *            the content hash of the configuration the image was created from
+     * @param svg
+     *            true for an SVG image, false for a PNG image
+     * @return the encoded image or null if it isn't cached
+     */
+    static byte[] get(final String hash, final boolean svg) {
+        if (getMaxSize() <= 0) {
+            return null;
+        }
+        File file = getFile(hash, svg);
+        try {
+            byte[] image = Files.readAllBytes(file.toPath());
+            // the modification time is the time of the last use
+            file.setLastModified(System.currentTimeMillis());
+            return image;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // e.g. deleted by another process while reading
+            LOGGER.debug("Couldn't read the cached image " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds an image and deletes the least recently used images if the cache grew beyond its maximum size.
+     *
+     * @param hash
+     *            the content hash of the configuration the image was created from
+     * @param svg
+     *            true for an SVG image, false for a PNG image
+     * @param image
+     *            the encoded image
+     * @throws IOException
+     *             if the image can't be written
+     */
+    static void put(final String hash, final boolean svg, final byte[] image) throws IOException {
+        long maxSize = getMaxSize();
+        if (maxSize <= 0 || image.length > maxSize) {
+            return;
+        }
+        File file = getFile(hash, svg);
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+            throw new IOException("Couldn't create the image cache directory " + directory);
+        }
+
+        File temp = File.createTempFile("image", ".tmp", directory);
+        try {
+            Files.write(temp.toPath(), image);
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        evict(directory, maxSize);
+    }
+
+    /**
+     * Deletes the least recently used images until the images in the directory fit into the maximum size.
+     */
+    private static void evict(final File directory, final long maxSize) {
+        File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(final File file) {
+                return file.isFile() && file.getName().startsWith(VERSION + "-");
+            }
+        });
+        if (files == null) {
+            return;
+        }
+
+        // the modification time may change while sorting, so it is read once
+        final long[] lastUse = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        long size = 0;
+        for (int i = 0; i < files.length; i++) {
+            lastUse[i] = files[i].lastModified();
+            order[i] = i;
+            size += files[i].length();
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                return Long.compare(lastUse[a], lastUse[b]);
+            }
+        });
+
+        for (int i = 0; i < order.length && size > maxSize; i++) {
+            File file = files[order[i]];
+            long length = file.length();
+            if (file.delete()) {
+                size -= length;
+            }
+        }
+    }
+
+    private static File getFile(final String hash, final boolean svg) {
+        return new File(new File(KNIMEConstants.getKNIMETempDir(), DIRECTORY_NAME),
+                VERSION + "-" + hash + (svg ? ".svg" : ".png"));
+    }
+
+    private static long getMaxSize() {
+        return Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE_MB) * (1L << 20);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+/**
+ * Small, fast and splittable pseudo random number generator (SplitMix64). A stream for any index can be derived from a
+ * seed without generating the preceding streams, so chunks of points can be sampled in parallel and still give the
+ * same result for any number of threads.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class SplitMix64 {
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+    private long m_state;
+
+    // the second value of the last Box-Muller transform
+    private double m_nextGaussian;
+    private boolean m_hasNextGaussian;
+
+    /**
+     * @param seed
+     *            the initial state
+     */
+    SplitMix64(final long seed) {
+        m_state = seed;
+    }
+
+    /**
+     * Creates the generator of one stream, different streams of the same seed are statistically independent.
+     *
+     * @param seed
+     *            the seed shared by all streams
+     * @param stream
+     *            the index of the stream
+     * @return the generator of the stream
+     */
+    static SplitMix64 stream(final long seed, final long stream) {
+        return new SplitMix64(mix(seed + mix(stream * GOLDEN_GAMMA + GOLDEN_GAMMA)));
+    }
+
+    /**
+     * @return the next pseudo random long
+     */
+    long nextLong() {
+        m_state += GOLDEN_GAMMA;
+        return mix(m_state);
+    }
+
+    /**
+     * @return a pseudo random double between 0 (inclusive) and 1 (exclusive)
+     */
+    double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @param bound
+     *            the upper bound (exclusive), must be positive
+     * @return a pseudo random int between 0 (inclusive) and the bound (exclusive)
+     */
+    int nextInt(final int bound) {
+        // the high bits are the best bits, the bias is negligible for the small
+        // bounds used here
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+
+    /**
+     * @return a normally distributed pseudo random double with mean 0 and standard deviation 1
+     */
+    double nextGaussian() {
+        if (m_hasNextGaussian) {
+            m_hasNextGaussian = false;
+            return m_nextGaussian;
+        }
+        // polar Box-Muller transform
+        double v1;
+        double v2;
+        double s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        double multiplier = Math.sqrt(-2 * Math.log(s) / s);
+        m_nextGaussian = v2 * multiplier;
+        m_hasNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    private static long mix(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
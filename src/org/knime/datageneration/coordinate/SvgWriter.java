@@ -0,0 +1,284 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by
+ *  University of Konstanz, Germany and
+ *  KNIME GmbH, Konstanz, Germany
+ *  Website: http://www.knime.org; Email: contact@knime.org
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME GMBH herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME. The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ------------------------------------------------------------------------
+ */
+package org.knime.datageneration.coordinate;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.imageio.ImageIO;
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * Writes the image of a coordinate panel as SVG. The document is written element by element to a {@link Writer}, no
+ * DOM or raster of the image size is created. Every class has a single marker definition which all its points
+ * reference, so a point only costs one short element. Axes, grid lines and labels are painted by
+ * {@link CoordinatePanelRenderer#paintBackground(CoordinatePanelRenderer.Canvas)}, the same geometry as in the PNG
+ * image. Above the density threshold, the density image is embedded as PNG instead of the single points.
+ *
+ * @author Daniel Seebacher, University of Konstanz.
+ */
+final class SvgWriter implements CoordinatePanelRenderer.Canvas {
+
+    private static final String PLOT_CLIP_ID = "plot";
+
+    private final Writer m_out;
+    private final FontMetrics m_fontMetrics;
+
+    // true while the following lines are drawn with the stroke of the axes
+    private boolean m_axisStroke;
+
+    // true while a group using the clip path is open
+    private boolean m_clipped;
+
+    /**
+     * @param out
+     *            the writer the SVG document is written to, should be buffered
+     */
+    private SvgWriter(final Writer out) {
+        m_out = out;
+
+        // labels are measured with the default font of a raster image, so
+        // they are placed like in the PNG image
+        final Graphics2D g2d = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+        m_fontMetrics = g2d.getFontMetrics();
+        g2d.dispose();
+    }
+
+    /**
+     * Writes the SVG image of the coordinate panel with the given points.
+     *
+     * @param renderer
+     *            the renderer holding the ranges, the grid, the size and the density threshold of the image
+     * @param points
+     *            the points of the image
+     * @param out
+     *            the writer the SVG document is written to, should be buffered. It isn't closed
+     * @throws IOException
+     *             if the document can't be written
+     */
+    static void write(final CoordinatePanelRenderer renderer, final PointStore points, final Writer out)
+            throws IOException {
+        new SvgWriter(out).writeDocument(renderer, points);
+    }
+
+    private void writeDocument(final CoordinatePanelRenderer renderer, final PointStore points)
+            throws IOException {
+        final int width = renderer.getWidth();
+        final int height = renderer.getHeight();
+        final Rectangle plotArea = renderer.getPlotArea();
+        final Font font = m_fontMetrics.getFont();
+
+        m_out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        m_out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" xmlns:xlink=\"http://www.w3.org/1999/xlink\""
+                + " version=\"1.1\" width=\"" + width + "\" height=\"" + height + "\" viewBox=\"0 0 " + width
+                + " " + height + "\" font-family=\"" + escape(font.getFamily()) + ", sans-serif\" font-size=\""
+                + font.getSize() + "\">\n");
+
+        // one marker per class, the points only reference them
+        final boolean density = renderer.isDensityMode(points.size());
+        m_out.write("<defs>\n");
+        m_out.write("<clipPath id=\"" + PLOT_CLIP_ID + "\"><rect x=\"" + plotArea.x + "\" y=\"" + plotArea.y
+                + "\" width=\"" + plotArea.width + "\" height=\"" + plotArea.height + "\"/></clipPath>\n");
+        if (!density) {
+            for (int pointClass = 1; pointClass <= 54; pointClass++) {
+                m_out.write("<circle id=\"c" + pointClass + "\" r=\"" + CoordinatePanelRenderer.POINT_SIZE / 2.0
+                        + "\" fill=\"" + toHex(CoordinatePanelRenderer.getColor(pointClass)) + "\"/>\n");
+            }
+        }
+        m_out.write("</defs>\n");
+
+        m_out.write("<g stroke=\"black\" stroke-width=\"1\" fill=\"black\">\n");
+        try {
+            renderer.paintBackground(this);
+        } catch (SvgWriteException e) {
+            throw (IOException) e.getCause();
+        }
+        m_out.write("</g>\n");
+
+        if (density) {
+            writeDensityImage(renderer, points, plotArea);
+        } else {
+            m_out.write("<g>\n");
+            for (int i = 0; i < points.size(); i++) {
+                final double[] xy = renderer.transformCoordinateToImage(points.getX(i), points.getY(i));
+                m_out.write("<use xlink:href=\"#c");
+                m_out.write(Integer.toString(points.getPointClass(i)));
+                m_out.write("\" x=\"");
+                writeNumber(xy[0]);
+                m_out.write("\" y=\"");
+                writeNumber(xy[1]);
+                m_out.write("\"/>\n");
+            }
+            m_out.write("</g>\n");
+        }
+        m_out.write("</svg>\n");
+        m_out.flush();
+    }
+
+    private void writeDensityImage(final CoordinatePanelRenderer renderer, final PointStore points,
+            final Rectangle plotArea) throws IOException {
+        final BufferedImage image = new DensityRenderer(renderer.getViewMinX(), renderer.getViewMaxX(),
+                renderer.getViewMinY(), renderer.getViewMaxY()).createImage(points, null, plotArea);
+        if (image == null) {
+            return;
+        }
+
+        // the cells are scaled up without smoothing, like in the PNG image
+        final ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        m_out.write("<image x=\"" + plotArea.x + "\" y=\"" + plotArea.y + "\" width=\"" + plotArea.width
+                + "\" height=\"" + plotArea.height + "\" preserveAspectRatio=\"none\""
+                + " style=\"image-rendering:pixelated\" xlink:href=\"data:image/png;base64,");
+        m_out.write(DatatypeConverter.printBase64Binary(png.toByteArray()));
+        m_out.write("\"/>\n");
+    }
+
+    @Override
+    public void fillBackground(final int width, final int height) {
+        write("<rect width=\"" + width + "\" height=\"" + height + "\" fill=\"white\" stroke=\"none\"/>\n");
+    }
+
+    @Override
+    public void setAxisStroke(final boolean axis) {
+        m_axisStroke = axis;
+    }
+
+    @Override
+    public void clip(final Rectangle area) {
+        // the renderer only clips to the plot area
+        write("<g clip-path=\"url(#" + PLOT_CLIP_ID + ")\">\n");
+        m_clipped = true;
+    }
+
+    @Override
+    public void resetClip() {
+        if (m_clipped) {
+            write("</g>\n");
+            m_clipped = false;
+        }
+    }
+
+    @Override
+    public void drawLine(final int x1, final int y1, final int x2, final int y2) {
+        write("<line x1=\"" + x1 + "\" y1=\"" + y1 + "\" x2=\"" + x2 + "\" y2=\"" + y2 + "\""
+                + (m_axisStroke ? " stroke-width=\"3\" stroke-linecap=\"square\"" : "") + "/>\n");
+    }
+
+    @Override
+    public void drawString(final String text, final int x, final int y) {
+        write("<text x=\"" + x + "\" y=\"" + y + "\" stroke=\"none\">" + escape(text) + "</text>\n");
+    }
+
+    @Override
+    public int stringWidth(final String text) {
+        return m_fontMetrics.stringWidth(text);
+    }
+
+    @Override
+    public int getFontHeight() {
+        return m_fontMetrics.getHeight();
+    }
+
+    /**
+     * Writes a string from within a canvas method, which can't throw checked exceptions.
+     */
+    private void write(final String markup) {
+        try {
+            m_out.write(markup);
+        } catch (IOException e) {
+            throw new SvgWriteException(e);
+        }
+    }
+
+    /**
+     * Writes a number with at most two decimal places, which is far below the size of a pixel.
+     */
+    private void writeNumber(final double value) throws IOException {
+        long hundredths = Math.round(value * 100);
+        if (hundredths < 0) {
+            m_out.write('-');
+            hundredths = -hundredths;
+        }
+        m_out.write(Long.toString(hundredths / 100));
+        final int fraction = (int) (hundredths % 100);
+        if (fraction != 0) {
+            m_out.write('.');
+            m_out.write('0' + fraction / 10);
+            if (fraction % 10 != 0) {
+                m_out.write('0' + fraction % 10);
+            }
+        }
+    }
+
+    private static String toHex(final Color color) {
+        return String.format("#%06X", color.getRGB() & 0xFFFFFF);
+    }
+
+    private static String escape(final String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+
+    /**
+     * Unchecked wrapper of an {@link IOException} thrown while the renderer paints onto the SVG canvas.
+     */
+    private static final class SvgWriteException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        SvgWriteException(final IOException cause) {
+            super(cause);
+        }
+    }
+}